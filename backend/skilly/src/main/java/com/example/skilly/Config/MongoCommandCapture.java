@@ -0,0 +1,47 @@
+package com.example.skilly.Config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.bson.BsonDocument;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+
+// Records the commands the driver sends from the current thread while a capture is running, so the
+// query a repository method really issues can be explained (see QueryPlanVerifier). The synchronous
+// driver raises command events on the calling thread; commands from other threads are ignored.
+@Configuration
+public class MongoCommandCapture {
+
+    private final ThreadLocal<List<BsonDocument>> captured = new ThreadLocal<>();
+
+    @Bean
+    MongoClientSettingsBuilderCustomizer commandCaptureListener() {
+        return settings -> settings.addCommandListener(new CommandListener() {
+            @Override
+            public void commandStarted(CommandStartedEvent event) {
+                List<BsonDocument> commands = captured.get();
+                if (commands != null) {
+                    // The event's document is backed by the outgoing buffer, so keep a copy
+                    commands.add(event.getCommand().clone());
+                }
+            }
+        });
+    }
+
+    // Runs the action and returns the commands it sent, in order
+    public List<BsonDocument> capture(Runnable action) {
+        List<BsonDocument> commands = new ArrayList<>();
+        captured.set(commands);
+        try {
+            action.run();
+        } finally {
+            captured.remove();
+        }
+        return commands;
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.skilly.Config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.web.servlet.MultipartProperties;
+import org.springframework.boot.web.servlet.MultipartConfigFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
+
+import jakarta.servlet.MultipartConfigElement;
+
+// Multipart files larger than the spool threshold are written to disk while the request is read,
+// so an upload only sits in heap while it is small. Location and size limits still come from the
+// spring.servlet.multipart properties; a file-size-threshold set there wins over this default.
+@Configuration
+public class MultipartConfig {
+
+    @Value("${media.upload.spool-threshold-bytes:1048576}")
+    private long spoolThreshold;
+
+    @Bean
+    public MultipartConfigElement multipartConfigElement(MultipartProperties properties) {
+        MultipartConfigFactory factory = new MultipartConfigFactory();
+        factory.setLocation(properties.getLocation());
+        factory.setMaxFileSize(properties.getMaxFileSize());
+        factory.setMaxRequestSize(properties.getMaxRequestSize());
+        DataSize configured = properties.getFileSizeThreshold();
+        factory.setFileSizeThreshold(configured != null && configured.toBytes() > 0
+                ? configured
+                : DataSize.ofBytes(spoolThreshold));
+        return factory.createMultipartConfig();
+    }
+}
@@ -2,11 +2,15 @@
 package com.example.skilly.Controllers;
 
 import com.example.skilly.Models.LearningPlan;
+import com.example.skilly.Services.JsonStreamService;
 import com.example.skilly.Services.LearningPlanService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import java.util.List;
 
 @RestController
@@ -16,8 +20,17 @@ public class LearningPlanController {
     @Autowired
     private LearningPlanService learningPlanService;
 
+    @Autowired
+    private JsonStreamService jsonStreamService;
+
+    // stream=true writes the plans from a cursor as they are read instead of building the list in memory
     @GetMapping
-    public ResponseEntity<List<LearningPlan>> getAllLearningPlans() {
+    public ResponseEntity<?> getAllLearningPlans(
+            @RequestParam(value = "stream", defaultValue = "false") boolean stream) {
+        if (stream) {
+            StreamingResponseBody body = jsonStreamService.streamAll(LearningPlan.class, Sort.unsorted());
+            return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+        }
         return ResponseEntity.ok(learningPlanService.getAllLearningPlans());
     }
 
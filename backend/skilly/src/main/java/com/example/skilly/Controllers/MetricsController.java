@@ -0,0 +1,122 @@
+package com.example.skilly.Controllers;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.example.skilly.Payload.MessageResponse;
+import com.example.skilly.Services.FeedService;
+import com.example.skilly.Services.JsonStreamService;
+import com.example.skilly.Services.LikeBuffer;
+import com.example.skilly.Services.MediaAssetIndex;
+import com.example.skilly.Services.MediaUploadService;
+import com.example.skilly.Services.PostCache;
+import com.example.skilly.Services.QueryPlanVerifier;
+import com.example.skilly.Services.RankedListCache;
+import com.example.skilly.Services.RankingSnapshotService;
+import com.example.skilly.Services.ResumableUploadService;
+import com.example.skilly.Utils.JwtUtil;
+
+@RestController
+@RequestMapping("/api/metrics")
+public class MetricsController {
+
+    @Autowired
+    private RankedListCache rankedListCache;
+
+    @Autowired
+    private LikeBuffer likeBuffer;
+
+    @Autowired
+    private QueryPlanVerifier queryPlanVerifier;
+
+    @Autowired
+    private PostCache postCache;
+
+    @Autowired
+    private JsonStreamService jsonStreamService;
+
+    @Autowired
+    private RankingSnapshotService rankingSnapshotService;
+
+    @Autowired
+    private MediaUploadService mediaUploadService;
+
+    @Autowired
+    private ResumableUploadService resumableUploadService;
+
+    @Autowired
+    private MediaAssetIndex mediaAssetIndex;
+
+    @Autowired
+    private FeedService feedService;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    // Each report calls every repository query method and explains what it sent; one is reused this long
+    @Value("${metrics.query-plans.cache-ms:300000}")
+    private long queryPlansCacheMillis;
+
+    private Map<String, Object> lastQueryPlans;
+    private long lastQueryPlansAt;
+
+    @GetMapping
+    public ResponseEntity<Map<String, Object>> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("rankedListCache", rankedListCache.getStats());
+        metrics.put("likeBuffer", likeBuffer.getStats());
+        metrics.put("postCache", postCache.getStats());
+        metrics.put("jsonStreams", jsonStreamService.getStats());
+        metrics.put("rankingSnapshot", rankingSnapshotService.getStats());
+        metrics.put("mediaUploads", mediaUploadService.getStats());
+        metrics.put("resumableUploads", resumableUploadService.getStats());
+        metrics.put("mediaAssets", mediaAssetIndex.getStats());
+        metrics.put("feed", feedService.getStats());
+        return ResponseEntity.ok(metrics);
+    }
+
+    // Explains every repository query and flags collection scans and in-memory sorts. Admins only.
+    @GetMapping("/query-plans")
+    public ResponseEntity<?> getQueryPlans(@RequestHeader(value = "Authorization", required = false) String token) {
+        if (!isAdmin(token)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN)
+                    .body(new MessageResponse("Admin access required"));
+        }
+        try {
+            return ResponseEntity.ok(queryPlans());
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("Error explaining queries: " + e.getMessage());
+        }
+    }
+
+    // Synchronized so concurrent callers share one run instead of explaining in parallel
+    private synchronized Map<String, Object> queryPlans() {
+        long now = System.currentTimeMillis();
+        if (lastQueryPlans == null || now - lastQueryPlansAt >= queryPlansCacheMillis) {
+            lastQueryPlans = queryPlanVerifier.verify();
+            lastQueryPlansAt = now;
+        }
+        return lastQueryPlans;
+    }
+
+    private boolean isAdmin(String token) {
+        if (token == null || !token.startsWith("Bearer ")) {
+            return false;
+        }
+        try {
+            return "ADMIN".equalsIgnoreCase(jwtUtil.getUserRoleFromToken(token.substring(7)));
+        } catch (Exception e) {
+            return false;
+        }
+    }
+}
@@ -5,13 +5,19 @@ import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Supplier;
 
 import com.example.skilly.DTOs.CommentNotification;
 import com.example.skilly.DTOs.LikeNotification;
 import com.example.skilly.Models.PostType;
+import com.example.skilly.Services.JsonStreamService;
+import com.example.skilly.Services.PostCardService;
+import com.example.skilly.Services.RankedListCache;
+import com.example.skilly.Services.RankingSnapshotService;
 import com.example.skilly.Services.UserService;
 import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -27,9 +33,11 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import com.example.skilly.DTOs.CommentRequest;
 import com.example.skilly.Models.Post;
+import com.example.skilly.Models.User;
 import com.example.skilly.Services.PostService;
 import com.example.skilly.Utils.JwtUtil;
 import org.springframework.web.server.ResponseStatusException;
@@ -51,9 +59,52 @@ public class PostController {
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private PostCardService postCardService;
+
+    @Autowired
+    private RankedListCache rankedListCache;
+
+    @Autowired
+    private JsonStreamService jsonStreamService;
+
+    @Autowired
+    private RankingSnapshotService rankingSnapshotService;
+
+    private static final int DEFAULT_PAGE_SIZE = 20;
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final String CARD_VIEW = "card";
+    private static final String VELOCITY_MODE = "velocity";
+    private static final String SNAPSHOT_MODE = "snapshot";
+    private static final Sort NEWEST_FIRST = Sort.by(Sort.Direction.DESC, "createdAt", "id");
+
+    // Passing cursor or limit switches a listing to cursor pagination; without them the full list is returned.
+    // view=card returns lightweight PostCards instead of full posts, flagged for the caller if a token is sent.
+    // stream=true writes the full list of posts from a cursor as it is read instead of building it in memory.
     @GetMapping
-    public ResponseEntity<List<Post>> getAllPosts() {
-        return ResponseEntity.ok(postService.findAll());
+    public ResponseEntity<?> getAllPosts(
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "limit", required = false) Integer limit,
+            @RequestParam(value = "view", required = false) String view,
+            @RequestParam(value = "stream", defaultValue = "false") boolean stream,
+            @RequestHeader(value = "Authorization", required = false) String token) {
+        boolean cards = CARD_VIEW.equals(view);
+        if (cursor == null && limit == null) {
+            if (stream && !cards) {
+                StreamingResponseBody body = jsonStreamService.streamAll(Post.class, NEWEST_FIRST);
+                return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+            }
+            return ResponseEntity.ok(cards ? postCardService.getAllCards(viewerId(token)) : postService.findAll());
+        }
+
+        try {
+            int pageSize = pageSize(limit);
+            return ResponseEntity.ok(cards
+                    ? postCardService.getCardsPage(cursor, pageSize, viewerId(token))
+                    : postService.findPage(cursor, pageSize));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
     }
 
     @GetMapping("/{id}")
@@ -64,34 +115,158 @@ public class PostController {
     }
 
     @GetMapping("/user/{userId}")
-    public ResponseEntity<List<Post>> getPostsByUserId(@PathVariable String userId) {
-        return ResponseEntity.ok(postService.findByUserId(userId));
+    public ResponseEntity<?> getPostsByUserId(
+            @PathVariable String userId,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "limit", required = false) Integer limit) {
+        if (cursor == null && limit == null) {
+            return ResponseEntity.ok(postService.findByUserId(userId));
+        }
+
+        try {
+            return ResponseEntity.ok(postService.findPageByUserId(userId, cursor, pageSize(limit)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
     }
 
     @GetMapping("/saved")
-    public List<Post> getSavedPostsByUser(@RequestHeader("Authorization") String token) {
+    public ResponseEntity<?> getSavedPostsByUser(
+            @RequestHeader("Authorization") String token,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "limit", required = false) Integer limit) {
         String userId = jwtUtil.getUserIdFromToken(token.replace("Bearer", ""));
         if (userId == null) {
             throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Invalid or missing token");
         }
-        return postService.getSavedPostsByUser(userId);
+        if (cursor == null && limit == null) {
+            return ResponseEntity.ok(postService.getSavedPostsByUser(userId));
+        }
+
+        try {
+            return ResponseEntity.ok(postService.getSavedPostsPage(userId, cursor, pageSize(limit)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
     }
 
+    // Batch "is saved" lookup for the caller, e.g. /saved/status?postIds=a,b,c
+    @GetMapping("/saved/status")
+    public ResponseEntity<?> getSavedStatus(
+            @RequestHeader("Authorization") String token,
+            @RequestParam("postIds") List<String> postIds) {
+        String userId = jwtUtil.getUserIdFromToken(token.replace("Bearer", ""));
+        if (userId == null) {
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Invalid or missing token");
+        }
+        if (postIds.size() > MAX_PAGE_SIZE) {
+            return ResponseEntity.badRequest().body("At most " + MAX_PAGE_SIZE + " post ids per request");
+        }
+        return ResponseEntity.ok(postService.getSavedStatus(userId, postIds));
+    }
+
+    // mode=velocity ranks by engagement gained over the last day instead of the lifetime trending score
+    // mode=snapshot (here and on /popular) serves the last scheduled ranking, and accepts type to rank one post type
     @GetMapping("/trending")
-    public List<Post> getTrendingPosts() {
-        return postService.getTrendingPosts();
+    public ResponseEntity<?> getTrendingPosts(
+            @RequestParam(defaultValue = "50") int limit,
+            @RequestParam(value = "mode", required = false) String mode,
+            @RequestParam(value = "type", required = false) PostType type,
+            @RequestParam(value = "view", required = false) String view,
+            @RequestHeader(value = "Authorization", required = false) String token) {
+        int topK = Math.max(1, Math.min(limit, 200));
+        if (SNAPSHOT_MODE.equals(mode)) {
+            return fromSnapshot(true, type, topK, view, token);
+        }
+        if (type != null) {
+            return ResponseEntity.badRequest().body("type is only supported with mode=snapshot");
+        }
+
+        boolean byVelocity = VELOCITY_MODE.equals(mode);
+        String key = "trending:" + (byVelocity ? VELOCITY_MODE : "score") + ":" + topK;
+
+        if (CARD_VIEW.equals(view)) {
+            String viewerId = viewerId(token);
+            return ResponseEntity.ok(cached(key + ":card", viewerId, () -> byVelocity
+                    ? postCardService.getVelocityTrendingCards(topK, viewerId)
+                    : postCardService.getTrendingCards(topK, viewerId)));
+        }
+        return ResponseEntity.ok(cached(key, null, () -> byVelocity
+                ? postService.getVelocityTrendingPosts(topK)
+                : postService.getTrendingPosts(topK)));
     }
 
     @GetMapping("/recent")
-    public List<Post> getRecentPosts() {
-        return postService.getRecentPosts();
+    public ResponseEntity<?> getRecentPosts(
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "limit", required = false) Integer limit,
+            @RequestParam(value = "view", required = false) String view,
+            @RequestHeader(value = "Authorization", required = false) String token) {
+        boolean cards = CARD_VIEW.equals(view);
+        String viewerId = cards ? viewerId(token) : null;
+        if (cursor == null && limit == null) {
+            return ResponseEntity.ok(cards
+                    ? cached("recent:card", viewerId, () -> postCardService.getRecentCards(viewerId))
+                    : cached("recent", null, () -> postService.getRecentPosts()));
+        }
+
+        try {
+            int pageSize = pageSize(limit);
+            return ResponseEntity.ok(cards
+                    ? postCardService.getRecentCardsPage(cursor, pageSize, viewerId)
+                    : postService.getRecentPostsPage(cursor, pageSize));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
     }
 
     @GetMapping("/popular")
-    public List<Post> getPopularPosts() {
-        return postService.getPopularPosts();
+    public ResponseEntity<?> getPopularPosts(
+            @RequestParam(defaultValue = "50") int limit,
+            @RequestParam(value = "mode", required = false) String mode,
+            @RequestParam(value = "type", required = false) PostType type,
+            @RequestParam(value = "view", required = false) String view,
+            @RequestHeader(value = "Authorization", required = false) String token) {
+        int topN = Math.max(1, Math.min(limit, 200));
+        if (SNAPSHOT_MODE.equals(mode)) {
+            return fromSnapshot(false, type, topN, view, token);
+        }
+        if (type != null) {
+            return ResponseEntity.badRequest().body("type is only supported with mode=snapshot");
+        }
+
+        if (CARD_VIEW.equals(view)) {
+            String viewerId = viewerId(token);
+            return ResponseEntity.ok(cached("popular:card:" + topN, viewerId,
+                    () -> postCardService.getPopularCards(topN, viewerId)));
+        }
+        return ResponseEntity.ok(cached("popular:" + topN, null, () -> postService.getPopularPosts(topN)));
     }
 
+    // mode=snapshot serves the rankings precomputed by RankingSnapshotService, optionally for a single post type
+    private ResponseEntity<?> fromSnapshot(boolean trending, PostType type, int limit, String view, String token) {
+        RankingSnapshotService.RankingSnapshot snapshot = rankingSnapshotService.getSnapshot();
+        if (snapshot == null) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body("Ranking snapshot is not ready yet");
+        }
+
+        RankingSnapshotService.Rankings rankings = snapshot.rankings(type);
+        List<RankingSnapshotService.RankedPost> ranked = trending ? rankings.trending() : rankings.popular();
+        // Keyed by the snapshot, so a new one is served as soon as it is swapped in
+        String key = (trending ? "trending" : "popular") + ":" + SNAPSHOT_MODE + ":"
+                + snapshot.computedAt().getTime() + ":" + (type != null ? type : "all") + ":" + limit;
+        if (CARD_VIEW.equals(view)) {
+            String viewerId = viewerId(token);
+            return ResponseEntity.ok(cached(key + ":card", viewerId,
+                    () -> postCardService.getRankedCards(ranked, limit, viewerId)));
+        }
+        return ResponseEntity.ok(cached(key, null, () -> postService.getRankedPosts(ranked, limit)));
+    }
+
+    // Ranked lists are shared through the cache; cards flagged for a specific caller are not
+    private <T> List<T> cached(String key, String viewerId, Supplier<List<T>> loader) {
+        return viewerId == null ? rankedListCache.get(key, loader) : loader.get();
+    }
 
     @PostMapping(consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
     public ResponseEntity<?> createPost(
@@ -100,14 +275,15 @@ public class PostController {
             @RequestParam("description") String description,
             @RequestParam(value = "images", required = false) MultipartFile[] images,
             @RequestParam(value = "video", required = false) MultipartFile video,
+            @RequestParam(value = "videoUploadId", required = false) String videoUploadId,
             @RequestHeader("Authorization") String token) {
 
         try {
             // Extract userId from token
             String userId = jwtUtil.getUserIdFromToken(token.replace("Bearer ", ""));
 
-            // Get username from user service
-            String username = userService.getUserById(userId).getUsername();
+            // The author's name and avatar are copied onto the post
+            User author = userService.getUserById(userId);
 
             // Validate image count
             if (images != null && images.length > 3) {
@@ -115,7 +291,7 @@ public class PostController {
             }
 
             // Create post with media
-            Post post = postService.createPost(userId, username, title, description, postType, images, video);
+            Post post = postService.createPost(author, title, description, postType, images, video, videoUploadId);
 
             return ResponseEntity.status(HttpStatus.CREATED).body(post);
         } catch (IllegalArgumentException e) {
@@ -275,7 +451,38 @@ public class PostController {
                 .orElse(ResponseEntity.notFound().build());
     }
 
+    // Caller for the likedByMe/savedByMe card flags; anonymous if the token is missing or invalid
+    private String viewerId(String token) {
+        if (token == null || !token.startsWith("Bearer ")) {
+            return null;
+        }
+        try {
+            return jwtUtil.getUserIdFromToken(token.substring(7));
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    private int pageSize(Integer limit) {
+        if (limit == null) {
+            return DEFAULT_PAGE_SIZE;
+        }
+        return Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+    }
+
     // Comment endpoints
+    @GetMapping("/{id}/comments")
+    public ResponseEntity<?> getComments(
+            @PathVariable String id,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "limit", required = false) Integer limit) {
+        try {
+            return ResponseEntity.ok(postService.getCommentsPage(id, cursor, pageSize(limit)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
     @PostMapping("/{id}/comments")
     public ResponseEntity<Post> addComment(
             @PathVariable String id,
@@ -9,15 +9,18 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
-import com.example.skilly.Exceptions.ResourceNotFoundException;
+import com.example.skilly.DTOs.UserSummary;
 import com.example.skilly.Models.Post;
 import com.example.skilly.Models.User;
+import com.example.skilly.Services.PostCardService;
 import com.example.skilly.Services.SearchService;
-import com.example.skilly.Services.UserService;
+import com.example.skilly.Services.UserSummaryLoader;
+import com.example.skilly.Utils.JwtUtil;
 
 @RestController
 @RequestMapping("/search")
@@ -28,7 +31,13 @@ public class SearchController {
     private SearchService searchService;
 
     @Autowired
-    private UserService userService;
+    private UserSummaryLoader userSummaryLoader;
+
+    @Autowired
+    private PostCardService postCardService;
+
+    @Autowired
+    private JwtUtil jwtUtil;
 
     @GetMapping("/users")
     public ResponseEntity<List<User>> searchUsers(@RequestParam String keyword) {
@@ -36,21 +45,34 @@ public class SearchController {
     }
 
     @GetMapping("/posts")
-    public ResponseEntity<List<Map<String, Object>>> searchPosts(@RequestParam String keyword) {
+    public ResponseEntity<?> searchPosts(
+            @RequestParam String keyword,
+            @RequestParam(value = "view", required = false) String view,
+            @RequestHeader(value = "Authorization", required = false) String token) {
+        if ("card".equals(view)) {
+            return ResponseEntity.ok(postCardService.searchCards(keyword, viewerId(token)));
+        }
+
         List<Post> posts = searchService.searchPosts(keyword);
         List<Map<String, Object>> postsWithUserInfo = new ArrayList<>();
 
+        // Posts carry an author snapshot; any without one get their authors in a single query
+        Map<String, UserSummary> authors = userSummaryLoader.load(posts.stream()
+                .filter(post -> post.getAuthor() == null)
+                .map(Post::getUserId)
+                .toList());
         for (Post post : posts) {
             Map<String, Object> postMap = new HashMap<>();
             postMap.put("post", post);
 
-            try {
-                // Get the user who created the post using your existing UserService
-                User user = userService.getUserById(post.getUserId());
-                postMap.put("username", user.getUsername());
-                postMap.put("avatar", user.getProfilePicUrl());
-
-            } catch (ResourceNotFoundException e) {
+            UserSummary author = authors.get(post.getUserId());
+            if (post.getAuthor() != null) {
+                postMap.put("username", post.getAuthor().getUsername());
+                postMap.put("avatar", post.getAuthor().getProfilePicUrl());
+            } else if (author != null) {
+                postMap.put("username", author.getUsername());
+                postMap.put("avatar", author.getProfilePicUrl());
+            } else {
                 // Handle case where user doesn't exist
                 postMap.put("username", "Unknown User");
             }
@@ -60,4 +82,16 @@ public class SearchController {
 
         return ResponseEntity.ok(postsWithUserInfo);
     }
+
+    // Caller for the likedByMe/savedByMe card flags; anonymous if the token is missing or invalid
+    private String viewerId(String token) {
+        if (token == null || !token.startsWith("Bearer ")) {
+            return null;
+        }
+        try {
+            return jwtUtil.getUserIdFromToken(token.substring(7));
+        } catch (Exception e) {
+            return null;
+        }
+    }
 }
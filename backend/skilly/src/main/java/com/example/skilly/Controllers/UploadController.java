@@ -0,0 +1,118 @@
+package com.example.skilly.Controllers;
+
+import java.io.IOException;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.example.skilly.DTOs.UploadSessionRequest;
+import com.example.skilly.Exceptions.ResourceNotFoundException;
+import com.example.skilly.Exceptions.UploadOffsetMismatchException;
+import com.example.skilly.Models.UploadSession;
+import com.example.skilly.Services.ResumableUploadService;
+import com.example.skilly.Utils.JwtUtil;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+// Resumable video uploads. POST creates a session, each PUT appends the raw request body at ?offset=
+// (which must equal the committed offset), GET returns the committed offset to resume from after a
+// dropped connection, and POST .../complete stores the video. The session id is then passed to
+// POST /api/posts as videoUploadId.
+@RestController
+@RequestMapping("/api/uploads/videos")
+@CrossOrigin(origins = "*")
+public class UploadController {
+
+    @Autowired
+    private ResumableUploadService resumableUploadService;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @PostMapping
+    public ResponseEntity<?> createSession(@RequestBody UploadSessionRequest request,
+            @RequestHeader("Authorization") String token) {
+        try {
+            UploadSession session = resumableUploadService.create(userId(token), request.getFilename(),
+                    request.getContentType(), request.getSize());
+            return ResponseEntity.status(HttpStatus.CREATED).body(session);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (IOException e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("Error creating upload: " + e.getMessage());
+        }
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<?> getSession(@PathVariable String id, @RequestHeader("Authorization") String token) {
+        try {
+            return ResponseEntity.ok(resumableUploadService.get(id, userId(token)));
+        } catch (ResourceNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
+        }
+    }
+
+    @PutMapping("/{id}")
+    public ResponseEntity<?> appendChunk(@PathVariable String id, @RequestParam("offset") long offset,
+            @RequestHeader("Authorization") String token, HttpServletRequest request) {
+        try {
+            return ResponseEntity.ok(resumableUploadService.append(id, userId(token), offset, request.getInputStream()));
+        } catch (UploadOffsetMismatchException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(Map.of("message", e.getMessage(), "committedOffset", e.getCommittedOffset()));
+        } catch (ResourceNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (IOException e) {
+            // Usually the client dropping mid-chunk; what arrived is committed and GET reports it
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("Error receiving chunk: " + e.getMessage());
+        }
+    }
+
+    @PostMapping("/{id}/complete")
+    public ResponseEntity<?> complete(@PathVariable String id, @RequestHeader("Authorization") String token) {
+        try {
+            return ResponseEntity.ok(resumableUploadService.complete(id, userId(token)));
+        } catch (ResourceNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (IOException e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("Error storing video: " + e.getMessage());
+        }
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<?> abort(@PathVariable String id, @RequestHeader("Authorization") String token) {
+        try {
+            resumableUploadService.abort(id, userId(token));
+            return ResponseEntity.noContent().build();
+        } catch (ResourceNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
+        } catch (IOException e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("Error removing upload: " + e.getMessage());
+        }
+    }
+
+    private String userId(String token) {
+        return jwtUtil.getUserIdFromToken(token.replace("Bearer ", ""));
+    }
+}
@@ -4,10 +4,11 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
-import com.example.skilly.Config.CloudinaryConfig;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -15,9 +16,11 @@ import com.example.skilly.Exceptions.ResourceNotFoundException;
 import com.example.skilly.Models.User;
 import com.example.skilly.Payload.MessageResponse;
 import com.example.skilly.Services.UserService;
-import com.example.skilly.Services.CloudinaryService;
+import com.example.skilly.Services.MediaStorage;
+import com.example.skilly.Services.JsonStreamService;
 import com.example.skilly.Utils.JwtUtil;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @RestController
 @RequestMapping("/api/users")
@@ -30,10 +33,18 @@ public class UserController {
     private JwtUtil jwtUtil;
 
     @Autowired
-    private CloudinaryService cloudinaryService;
+    private MediaStorage mediaStorage;
 
+    @Autowired
+    private JsonStreamService jsonStreamService;
+
+    // stream=true writes the users from a cursor as they are read instead of building the list in memory
     @GetMapping
-    public ResponseEntity<?> getAllUsers() {
+    public ResponseEntity<?> getAllUsers(@RequestParam(value = "stream", defaultValue = "false") boolean stream) {
+        if (stream) {
+            StreamingResponseBody body = jsonStreamService.streamAll(User.class, Sort.unsorted());
+            return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+        }
         try {
             List<User> users = userService.getAllUsers();
             return ResponseEntity.ok(users);
@@ -317,7 +328,7 @@ public class UserController {
             String oldPublicId = user.getProfilePicPublicId();
 
             // Upload new image
-            Map<String, String> uploadResult = cloudinaryService.uploadFile(file);
+            Map<String, String> uploadResult = mediaStorage.uploadFile(file);
             String imageUrl = uploadResult.get("url");
             String publicId = uploadResult.get("public_id");
 
@@ -330,7 +341,7 @@ public class UserController {
             // Only after successful upload and database update, try to delete the old image
             if (oldPublicId != null && !oldPublicId.isEmpty()) {
                 System.out.println("Attempting to delete old image with publicId: " + oldPublicId);
-                boolean deleted = cloudinaryService.deleteFile(oldPublicId);
+                boolean deleted = mediaStorage.deleteFile(oldPublicId);
                 System.out.println("Old image deletion result: " + deleted);
             } else {
                 System.out.println("No old image publicId to delete");
@@ -0,0 +1,33 @@
+package com.example.skilly.DTOs;
+
+import java.util.Date;
+import java.util.List;
+
+import com.example.skilly.Models.PostType;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// What a feed card needs from a post: no likes/savedBy arrays, comments or Cloudinary public ids
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PostCard {
+    private String id;
+    private String userId;
+    private String username;
+    private String authorAvatarUrl; // From the author snapshot on the post
+    private PostType postType;
+    private String title;
+    private String snippet; // First characters of the content
+    private List<String> mediaUrls;
+    private String videoUrl;
+    private Integer videoDuration;
+    private int likeCount;
+    private int saveCount;
+    private int commentCount;
+    private Date createdAt;
+    private boolean likedByMe;
+    private boolean savedByMe;
+}
@@ -0,0 +1,10 @@
+package com.example.skilly.DTOs;
+
+import lombok.Data;
+
+@Data
+public class UploadSessionRequest {
+    private String filename;
+    private String contentType;
+    private long size;
+}
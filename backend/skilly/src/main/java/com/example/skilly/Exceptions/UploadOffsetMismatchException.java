@@ -0,0 +1,17 @@
+package com.example.skilly.Exceptions;
+
+// A chunk was sent for an offset other than the session's committed offset; the client should
+// resume from getCommittedOffset()
+public class UploadOffsetMismatchException extends RuntimeException {
+
+    private final long committedOffset;
+
+    public UploadOffsetMismatchException(long committedOffset) {
+        super("Upload is at offset " + committedOffset);
+        this.committedOffset = committedOffset;
+    }
+
+    public long getCommittedOffset() {
+        return committedOffset;
+    }
+}
@@ -2,17 +2,26 @@ package com.example.skilly.Models;
 
 import java.util.Date;
 
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+// Stored in its own collection; Post only embeds a copy of the latest few as a preview
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
+@Document(collection = "comments")
+@CompoundIndex(name = "postId_createdAt_id", def = "{'postId': 1, 'createdAt': -1, '_id': -1}")
 public class Comment {
+    @Id
     private String id;
+    private String postId;
     private String userId;
     private String content;
     private Date createdAt = new Date();
     private Date updatedAt;
-}
\ No newline at end of file
+}
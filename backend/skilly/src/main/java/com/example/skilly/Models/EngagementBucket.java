@@ -0,0 +1,29 @@
+package com.example.skilly.Models;
+
+import java.util.Date;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Weighted engagement of one post during one hour, compacted from EngagementCounterStore
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "engagementBuckets")
+@CompoundIndex(name = "postId_hour", def = "{'postId': 1, 'hour': 1}", unique = true)
+public class EngagementBucket {
+    @Id
+    private String id;
+    private String postId;
+    private long hour; // Hours since the epoch
+    private long count;
+
+    @Indexed(name = "bucketStart_ttl", expireAfter = "7d")
+    private Date bucketStart;
+}
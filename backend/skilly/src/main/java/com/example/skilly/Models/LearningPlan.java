@@ -5,6 +5,7 @@ import java.util.Date;
 import java.util.List;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 @Document(collection = "learningPlans")
@@ -13,12 +14,15 @@ public class LearningPlan {
     private String id;
     private String title;
     private String description;
+    @Indexed(name = "userId")
     private String userId;
     private String userName;
     private List<Topic> topics;
     private Date createdAt;
     private Date updatedAt;
+    @Indexed(name = "isPublic")
     private boolean isPublic;
+    @Indexed(name = "sharedWith")
     private List<String> sharedWith;
     private Date completionDeadline;
 
@@ -0,0 +1,31 @@
+package com.example.skilly.Models;
+
+import java.util.Date;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// One stored asset shared by every upload of the same bytes. The id is the content's SHA-256 and
+// resource type, and refCount is the number of posts, profiles and pending uploads pointing at
+// publicId; the asset is destroyed when the last of them lets go.
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "mediaAssets")
+public class MediaAsset {
+    @Id
+    private String id; // <sha256 hex>:<resource type>
+    private String resourceType;
+    // Deletes arrive by public id
+    @Indexed(unique = true)
+    private String publicId;
+    private String url;
+    private Integer duration; // Videos only
+    private long refCount;
+    private Date createdAt;
+}
@@ -0,0 +1,21 @@
+package com.example.skilly.Models;
+
+import java.util.Date;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Marks a data migration as done, so startup skips it instead of scanning for documents it still needs
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "migrations")
+public class Migration {
+    @Id
+    private String id; // Migration name
+    private Date completedAt;
+}
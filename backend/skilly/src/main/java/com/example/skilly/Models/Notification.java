@@ -5,11 +5,20 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.LocalDateTime;
 
 @Document(collection = "notifications")
+@CompoundIndexes({
+        @CompoundIndex(name = "userId_createdAt", def = "{'userId': 1, 'createdAt': -1}"),
+        // Unread list and unread count
+        @CompoundIndex(name = "userId_isRead_createdAt", def = "{'userId': 1, 'isRead': 1, 'createdAt': -1}"),
+        // Duplicate check before sending a notification
+        @CompoundIndex(name = "userId_senderId_postId_type", def = "{'userId': 1, 'senderId': 1, 'postId': 1, 'type': 1}")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
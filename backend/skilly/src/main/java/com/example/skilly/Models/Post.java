@@ -5,6 +5,8 @@ import java.util.Date;
 import java.util.List;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.mapping.Document;
 import com.example.skilly.Models.PostType;
 
@@ -16,23 +18,43 @@ import lombok.NoArgsConstructor;
 @NoArgsConstructor
 @AllArgsConstructor
 @Document(collection = "posts")
-
+@CompoundIndexes({
+        // Keyset pagination keys for the feed and per-user listings
+        @CompoundIndex(name = "createdAt_id", def = "{'createdAt': -1, '_id': -1}"),
+        @CompoundIndex(name = "userId_createdAt_id", def = "{'userId': 1, 'createdAt': -1, '_id': -1}")
+})
 public class Post {
     @Id
     private String id;
     private String userId;
-    private String username;
+    private String username; // Kept equal to author.username for existing clients
+    private Author author;
     private PostType postType;
     private String title;
     private String content;
     private List<String> mediaUrls;
     private List<String> likes;
     private List<String> savedBy = new ArrayList<>();
-    private List<Comment> comments = new ArrayList<>();
+    private List<Comment> comments = new ArrayList<>(); // Latest few comments only, see the comments collection
     private Date createdAt = new Date();
     private List<String> mediaPublicIds; // To store Cloudinary public IDs for media
     private String videoUrl; // To store video URL
     private String videoPublicId; // To store video public ID
     private Integer videoDuration; // To store video duration in seconds
 
+    // Materialized counters, kept in step with the arrays by atomic $inc updates
+    private int likeCount;
+    private int saveCount;
+    private int commentCount;
+
+    // Author fields copied onto the post so rendering it needs no user lookup. Propagated by
+    // AuthorSnapshotService when the user changes them; version orders concurrent propagations.
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Author {
+        private String username;
+        private String profilePicUrl;
+        private long version;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,33 @@
+package com.example.skilly.Models;
+
+import java.util.Date;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// One row per saved post, so a user's saved list is an index range read instead of a scan of
+// every post's savedBy array. Post.savedBy is still kept for the savedByMe card flag.
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "savedPosts")
+@CompoundIndexes({
+        @CompoundIndex(name = "userId_postId", def = "{'userId': 1, 'postId': 1}", unique = true),
+        // Keyset pagination key for the saved list, newest save first
+        @CompoundIndex(name = "userId_savedAt_postId", def = "{'userId': 1, 'savedAt': -1, 'postId': -1}"),
+        // Cleanup when a post is deleted
+        @CompoundIndex(name = "postId", def = "{'postId': 1}")
+})
+public class SavedPost {
+    @Id
+    private String id;
+    private String userId;
+    private String postId;
+    private Date savedAt;
+}
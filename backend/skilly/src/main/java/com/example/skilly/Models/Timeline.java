@@ -0,0 +1,33 @@
+package com.example.skilly.Models;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Home timeline of one user: ids of recent posts from the people they follow, newest first.
+// Entries are pushed when a post is created and the list is capped, so a feed read is a single _id lookup.
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "timelines")
+public class Timeline {
+    @Id
+    private String userId;
+    private List<Entry> entries = new ArrayList<>();
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Entry {
+        private String postId;
+        private String authorId;
+        private Date createdAt;
+    }
+}
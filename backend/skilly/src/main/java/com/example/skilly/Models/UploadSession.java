@@ -0,0 +1,45 @@
+package com.example.skilly.Models;
+
+import java.util.Date;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// A resumable video upload. Chunks are appended to a file on the server's disk and committedOffset
+// says how many bytes of it are durable, so a client that lost its connection asks for the offset
+// and continues from there. Once complete, the video is stored and the session waits to be attached
+// to a post; sessions not touched for a while are removed along with their file or stored video.
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "uploadSessions")
+public class UploadSession {
+
+    public enum Status {
+        UPLOADING,
+        COMPLETE
+    }
+
+    @Id
+    private String id;
+    private String userId;
+    private String filename;
+    private String contentType;
+    private long totalSize;
+    private long committedOffset;
+    private Status status;
+    private Date createdAt;
+    // Expired sessions are found by this
+    @Indexed
+    private Date updatedAt;
+
+    // Set when the session completes
+    private String videoUrl;
+    private String videoPublicId;
+    private int videoDuration;
+}
@@ -2,6 +2,7 @@ package com.example.skilly.Models;
 
 import lombok.*;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.LocalDateTime;
@@ -17,13 +18,16 @@ public class User {
     @Id
     private String id;
     private String username;
+    @Indexed(name = "email") // Not unique: older accounts may share an address
     private String email;
     private String password;
     private String profilePicUrl = "";
+    private long profileVersion; // Raised when username or profilePicUrl change, see AuthorSnapshotService
     private String bio = "";
     private String profilePic;
     private String profilePicPublicId;
     private String role = "USER";
+    @Indexed(name = "following") // Multikey, for "who follows this user" lookups
     private List<String> following = new ArrayList<>();
     private List<String> followers = new ArrayList<>();
     private List<String> skills = new ArrayList<>();
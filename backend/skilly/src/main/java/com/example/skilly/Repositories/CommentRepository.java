@@ -0,0 +1,21 @@
+package com.example.skilly.Repositories;
+
+import java.util.Date;
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import com.example.skilly.Models.Comment;
+
+@Repository
+public interface CommentRepository extends MongoRepository<Comment, String> {
+    List<Comment> findByPostId(String postId, Pageable pageable);
+
+    @Query("{ 'postId': ?0, $or: [ { 'createdAt': { $lt: ?1 } }, { 'createdAt': ?1, '_id': { $lt: ?2 } } ] }")
+    List<Comment> findByPostIdPageBefore(String postId, Date createdAt, String id, Pageable pageable);
+
+    void deleteByPostId(String postId);
+}
@@ -3,7 +3,9 @@ package com.example.skilly.Repositories;
 import java.util.Date;
 import java.util.List;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import com.example.skilly.Models.Post;
@@ -16,8 +18,27 @@ public interface PostRepository extends MongoRepository<Post, String> {
 
     List<Post> findAllByOrderByCreatedAtDesc();
 
-    List<Post> findBySavedByContaining(String userId);
-
     List<Post> findByCreatedAtAfter(Date date);
 
+    // Only the fields needed to score a post, without the likes/savedBy/comments arrays
+    @Query(value = "{ 'createdAt': { $gt: ?0 } }", fields = "{ 'createdAt': 1, 'likeCount': 1, 'saveCount': 1, 'commentCount': 1 }")
+    List<Post> findEngagementCountsByCreatedAtAfter(Date date);
+
+    // Keyset pages: the Pageable carries the limit and the (createdAt, id) descending sort,
+    // and the *PageBefore variants continue strictly after the given (createdAt, id) cursor
+    List<Post> findAllBy(Pageable pageable);
+
+    @Query("{ $or: [ { 'createdAt': { $lt: ?0 } }, { 'createdAt': ?0, '_id': { $lt: ?1 } } ] }")
+    List<Post> findPageBefore(Date createdAt, String id, Pageable pageable);
+
+    List<Post> findByUserId(String userId, Pageable pageable);
+
+    @Query("{ 'userId': ?0, $or: [ { 'createdAt': { $lt: ?1 } }, { 'createdAt': ?1, '_id': { $lt: ?2 } } ] }")
+    List<Post> findByUserIdPageBefore(String userId, Date createdAt, String id, Pageable pageable);
+
+    List<Post> findByCreatedAtAfter(Date date, Pageable pageable);
+
+    @Query("{ 'createdAt': { $gt: ?0 }, $or: [ { 'createdAt': { $lt: ?1 } }, { 'createdAt': ?1, '_id': { $lt: ?2 } } ] }")
+    List<Post> findRecentPageBefore(Date cutoffDate, Date createdAt, String id, Pageable pageable);
+
 }
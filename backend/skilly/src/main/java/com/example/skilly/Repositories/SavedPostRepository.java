@@ -0,0 +1,29 @@
+package com.example.skilly.Repositories;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import com.example.skilly.Models.SavedPost;
+
+@Repository
+public interface SavedPostRepository extends MongoRepository<SavedPost, String> {
+    List<SavedPost> findByUserIdOrderBySavedAtDescPostIdDesc(String userId);
+
+    // Keyset pages: the Pageable carries the limit and the (savedAt, postId) descending sort
+    List<SavedPost> findByUserId(String userId, Pageable pageable);
+
+    @Query("{ 'userId': ?0, $or: [ { 'savedAt': { $lt: ?1 } }, { 'savedAt': ?1, 'postId': { $lt: ?2 } } ] }")
+    List<SavedPost> findByUserIdPageBefore(String userId, Date savedAt, String postId, Pageable pageable);
+
+    List<SavedPost> findByUserIdAndPostIdIn(String userId, Collection<String> postIds);
+
+    void deleteByUserIdAndPostId(String userId, String postId);
+
+    void deleteByPostId(String postId);
+}
@@ -0,0 +1,10 @@
+package com.example.skilly.Repositories;
+
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+import com.example.skilly.Models.UploadSession;
+
+@Repository
+public interface UploadSessionRepository extends MongoRepository<UploadSession, String> {
+}
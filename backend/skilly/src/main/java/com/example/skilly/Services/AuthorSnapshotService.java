@@ -0,0 +1,88 @@
+package com.example.skilly.Services;
+
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import com.example.skilly.Models.Post;
+import com.example.skilly.Models.User;
+import com.mongodb.client.result.UpdateResult;
+
+import jakarta.annotation.PreDestroy;
+
+// Keeps the author snapshot on posts in step with the user. A change to username or profilePicUrl
+// raises the user's profileVersion, and a background task rewrites the author of all their posts.
+// The update only matches posts with an older snapshot, so a slow propagation can't overwrite a newer one.
+@Service
+public class AuthorSnapshotService {
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private PostCache postCache;
+
+    private final ExecutorService propagationExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "author-snapshot-propagation");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public static Post.Author snapshotOf(User user) {
+        return new Post.Author(user.getUsername(), user.getProfilePicUrl(), user.getProfileVersion());
+    }
+
+    public static boolean snapshotChanged(User before, User after) {
+        return !Objects.equals(before.getUsername(), after.getUsername())
+                || !Objects.equals(before.getProfilePicUrl(), after.getProfilePicUrl());
+    }
+
+    // Next profileVersion for a user whose snapshot fields changed. Time based, so a save from a stale
+    // copy of the user can't move the version backwards for the next change.
+    public static long nextVersion(User previous) {
+        return Math.max(previous.getProfileVersion() + 1, System.currentTimeMillis());
+    }
+
+    public void propagateAsync(User user) {
+        Post.Author author = snapshotOf(user);
+        String userId = user.getId();
+        propagationExecutor.execute(() -> {
+            try {
+                propagate(userId, author);
+            } catch (Exception e) {
+                // Posts keep the previous snapshot until the user's next profile change
+                System.err.println("Error propagating profile of user " + userId + " to posts: " + e.getMessage());
+            }
+        });
+    }
+
+    public long propagate(String userId, Post.Author author) {
+        Query olderSnapshots = new Query(Criteria.where("userId").is(userId).orOperator(
+                Criteria.where("author.version").lt(author.getVersion()),
+                Criteria.where("author").exists(false)));
+        UpdateResult result = mongoTemplate.updateMulti(olderSnapshots,
+                new Update().set("author", author).set("username", author.getUsername()),
+                Post.class);
+
+        if (result.getModifiedCount() > 0) {
+            postCache.invalidateAll();
+            System.out.println("Updated author snapshot on " + result.getModifiedCount() + " posts of user " + userId);
+        }
+        return result.getModifiedCount();
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        // Let queued propagations finish so a restart doesn't leave posts with an old snapshot
+        propagationExecutor.shutdown();
+        propagationExecutor.awaitTermination(10, TimeUnit.SECONDS);
+    }
+}
@@ -4,43 +4,76 @@ import com.cloudinary.Cloudinary;
 import com.cloudinary.Transformation;
 import com.cloudinary.utils.ObjectUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HexFormat;
 import java.util.Map;
 
+// Primary so it wins over LocalMediaStorage, which is always present to serve /uploads.
+// Identical uploads share one asset through MediaAssetIndex: the bytes are hashed while they are
+// copied to disk, a known digest skips the upload, and deleteFile only destroys an asset once its
+// last reference is gone.
 @Service
-public class CloudinaryService {
+@Primary
+@ConditionalOnProperty(name = "media.storage", havingValue = "cloudinary", matchIfMissing = true)
+public class CloudinaryService implements MediaStorage {
 
     @Autowired
     private Cloudinary cloudinary;
 
+    @Autowired
+    private MediaAssetIndex mediaAssetIndex;
+
+    // Videos above this size go up in chunks, each a separate request the SDK can retry
+    @Value("${media.upload.chunked-threshold-bytes:20971520}")
+    private long chunkedThreshold;
+
+    @Value("${media.upload.chunk-size-bytes:6291456}")
+    private int chunkSize;
+
     // Upload file and return both URL and public_id
+    @Override
     public Map<String, String> uploadFile(MultipartFile file, String folder) throws IOException {
-        Map<?, ?> uploadResult = cloudinary.uploader().upload(
-                file.getBytes(),
-                ObjectUtils.asMap(
-                        "folder", folder,
-                        "use_filename", true,
-                        "unique_filename", true
-                )
-        );
-
-        return Map.of(
-                "url", uploadResult.get("secure_url").toString(),
-                "public_id", uploadResult.get("public_id").toString()
-        );
+        return deduplicated(file, "image", spooled -> {
+            Map<?, ?> uploadResult = upload(spooled, file, false,
+                    ObjectUtils.asMap(
+                            "folder", folder,
+                            "use_filename", true,
+                            "unique_filename", true
+                    )
+            );
+
+            return Map.of(
+                    "url", uploadResult.get("secure_url").toString(),
+                    "public_id", uploadResult.get("public_id").toString()
+            );
+        });
     }
 
+    @Override
     public Map<String, String> uploadVideo(MultipartFile file, String folder) throws IOException {
+        return deduplicated(file, "video", spooled -> uploadVideo(spooled, file, folder));
+    }
+
+    private Map<String, String> uploadVideo(Path spooled, MultipartFile file, String folder) throws IOException {
         // Create a proper Cloudinary Transformation object
         Transformation transformation = new Transformation().duration(30);
 
-        Map<?, ?> uploadResult = cloudinary.uploader().upload(
-                file.getBytes(),
+        Map<?, ?> uploadResult = upload(spooled, file, true,
                 ObjectUtils.asMap(
                         "resource_type", "video",
                         "folder", folder,
@@ -67,16 +100,96 @@ public class CloudinaryService {
         return result;
     }
 
-    // Delete file using public_id
+    private interface Upload {
+        Map<String, String> run(Path spooled) throws IOException;
+    }
+
+    // Hands the uploader a file on disk rather than file.getBytes(), so an upload reads through a small
+    // buffer instead of holding the whole file in heap. The copy to our own temp file streams through
+    // SHA-256, so content that is already stored is reused without uploading it again. The temp file
+    // is removed once the upload is done.
+    private Map<String, String> deduplicated(MultipartFile file, String resourceType, Upload upload)
+            throws IOException {
+        Path temp = Files.createTempFile("skilly-upload-", null);
+        try {
+            String digest = spool(file, temp);
+            Map<String, String> existing = mediaAssetIndex.acquire(digest, resourceType);
+            if (existing != null) {
+                return existing;
+            }
+
+            Map<String, String> result = upload.run(temp);
+            if (mediaAssetIndex.register(digest, resourceType, result)) {
+                return result;
+            }
+            // The same bytes were uploaded concurrently and recorded first; use that asset and drop ours
+            Map<String, String> winner = mediaAssetIndex.acquire(digest, resourceType);
+            if (winner == null) {
+                // That asset is being destroyed; ours stays, outside the index
+                return result;
+            }
+            destroy(result.get("public_id"), resourceType);
+            return winner;
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private static String spool(MultipartFile file, Path target) throws IOException {
+        MessageDigest sha256;
+        try {
+            sha256 = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+        try (InputStream in = new DigestInputStream(file.getInputStream(), sha256)) {
+            Files.copy(in, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+        return HexFormat.of().formatHex(sha256.digest());
+    }
+
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+    private Map<?, ?> upload(Path spooled, MultipartFile file, boolean allowChunked, Map options) throws IOException {
+        // use_filename should name the asset after the upload, not our temp file
+        if (file.getOriginalFilename() != null && !file.getOriginalFilename().isBlank()) {
+            options.put("filename", file.getOriginalFilename());
+        }
+        if (allowChunked && Files.size(spooled) > chunkedThreshold) {
+            options.put("chunk_size", chunkSize);
+            return cloudinary.uploader().uploadLarge(spooled.toFile(), options);
+        }
+        return cloudinary.uploader().upload(spooled.toFile(), options);
+    }
+
+    private void destroy(String publicId, String resourceType) {
+        try {
+            cloudinary.uploader().destroy(publicId, ObjectUtils.asMap("resource_type", resourceType));
+        } catch (IOException e) {
+            System.err.println("Error deleting duplicate upload " + publicId + ": " + e.getMessage());
+        }
+    }
+
+    // Delete file using public_id, once nothing else references the same asset. Returns true only
+    // if the asset was destroyed; releasing a shared asset that stays returns false.
+    @Override
     public boolean deleteFile(String publicId) {
         if (publicId == null || publicId.isEmpty()) {
             System.out.println("Cannot delete image: publicId is null or empty");
             return false;
         }
+        MediaAssetIndex.Release release = mediaAssetIndex.release(publicId);
+        if (!release.destroy()) {
+            System.out.println("Image " + publicId + " is still referenced; keeping it");
+            return false;
+        }
+        // Cloudinary destroys images unless told otherwise; assets outside the index keep that default
+        Map options = release.resourceType() != null
+                ? ObjectUtils.asMap("resource_type", release.resourceType())
+                : ObjectUtils.emptyMap();
 
         try {
             System.out.println("Attempting to delete image with publicId: " + publicId);
-            Map result = cloudinary.uploader().destroy(publicId, ObjectUtils.emptyMap());
+            Map result = cloudinary.uploader().destroy(publicId, options);
 
             // Check if deletion was successful
             String status = (String) result.get("result");
@@ -90,9 +203,4 @@ public class CloudinaryService {
             return false;
         }
     }
-
-    // Overloaded method for default folder
-    public Map<String, String> uploadFile(MultipartFile file) throws IOException {
-        return uploadFile(file, "profile_pictures");
-    }
 }
\ No newline at end of file
@@ -0,0 +1,205 @@
+package com.example.skilly.Services;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.example.skilly.Models.EngagementBucket;
+
+import jakarta.annotation.PreDestroy;
+
+// Per-post engagement counted in hourly buckets, for ranking by how fast a post is gaining engagement.
+// Events only increment LongAdders in a ring of hourly buckets per post, so bursts never block or touch
+// Mongo; the deltas are compacted into the engagementBuckets collection on a schedule.
+@Service
+public class EngagementCounterStore {
+
+    // Trending weights (likes 1, saves 2.5, comments 2) doubled to stay integral
+    public static final int LIKE_WEIGHT = 2;
+    public static final int SAVE_WEIGHT = 5;
+    public static final int COMMENT_WEIGHT = 4;
+
+    private static final long HOUR_MILLIS = 60L * 60 * 1000;
+    private static final int RING_HOURS = 48;
+    private static final int VELOCITY_HOURS = 24;
+    private static final double HALF_LIFE_HOURS = 6.0;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    private final ConcurrentHashMap<String, Ring> rings = new ConcurrentHashMap<>();
+
+    private static final class Bucket {
+        final long hour;
+        final LongAdder total = new LongAdder();
+        final LongAdder unflushed = new LongAdder();
+
+        Bucket(long hour) {
+            this.hour = hour;
+        }
+    }
+
+    // Slot i holds the bucket for an hour h with h % RING_HOURS == i. A slot still holding an older
+    // hour is swapped for a fresh bucket with a CAS, so writers never lock.
+    private static final class Ring {
+        final AtomicReferenceArray<Bucket> slots = new AtomicReferenceArray<>(RING_HOURS);
+
+        Bucket bucket(long hour) {
+            int slot = (int) (hour % RING_HOURS);
+            while (true) {
+                Bucket current = slots.get(slot);
+                if (current != null && current.hour == hour) {
+                    return current;
+                }
+                if (current != null && current.hour > hour) {
+                    return null; // Older than the ring covers
+                }
+                if (slots.compareAndSet(slot, current, new Bucket(hour))) {
+                    return slots.get(slot);
+                }
+            }
+        }
+
+        long count(long hour) {
+            Bucket bucket = slots.get((int) (hour % RING_HOURS));
+            return bucket != null && bucket.hour == hour ? bucket.total.sum() : 0;
+        }
+    }
+
+    private record Delta(String postId, long hour, long count) {
+    }
+
+    private record Ranked(String postId, double velocity) {
+    }
+
+    public void record(String postId, int weight) {
+        Bucket bucket = rings.computeIfAbsent(postId, id -> new Ring()).bucket(currentHour());
+        if (bucket != null) {
+            bucket.total.add(weight);
+            bucket.unflushed.add(weight);
+        }
+    }
+
+    // Sum of the last 24 hourly counts, each halved every 6 hours of age
+    public double velocity(String postId) {
+        Ring ring = rings.get(postId);
+        return ring != null ? velocity(ring, currentHour()) : 0;
+    }
+
+    // Returns up to limit post ids with the highest positive velocity
+    public List<String> topPostIds(int limit) {
+        long now = currentHour();
+        PriorityQueue<Ranked> top = new PriorityQueue<>(limit + 1, Comparator.comparingDouble(Ranked::velocity));
+        for (Map.Entry<String, Ring> entry : rings.entrySet()) {
+            double velocity = velocity(entry.getValue(), now);
+            if (velocity <= 0) {
+                continue;
+            }
+            top.add(new Ranked(entry.getKey(), velocity));
+            if (top.size() > limit) {
+                top.poll();
+            }
+        }
+
+        List<Ranked> ranked = new ArrayList<>(top);
+        ranked.sort(Comparator.comparingDouble(Ranked::velocity).reversed());
+        return ranked.stream().map(Ranked::postId).toList();
+    }
+
+    private static double velocity(Ring ring, long now) {
+        double velocity = 0;
+        for (int age = 0; age < VELOCITY_HOURS; age++) {
+            long count = ring.count(now - age);
+            if (count != 0) {
+                velocity += count * Math.pow(0.5, age / HALF_LIFE_HOURS);
+            }
+        }
+        return velocity;
+    }
+
+    // Writes the counts gathered since the last flush as one bulk $inc per (post, hour), and drops
+    // rings that have been idle for the whole ring window
+    @Scheduled(fixedDelayString = "${engagement.flush-interval-ms:10000}")
+    @PreDestroy
+    public void flush() {
+        long now = currentHour();
+        List<Delta> deltas = new ArrayList<>();
+
+        for (Map.Entry<String, Ring> entry : rings.entrySet()) {
+            Ring ring = entry.getValue();
+            boolean active = false;
+            for (int i = 0; i < RING_HOURS; i++) {
+                Bucket bucket = ring.slots.get(i);
+                if (bucket == null) {
+                    continue;
+                }
+                long delta = bucket.unflushed.sumThenReset();
+                if (delta != 0) {
+                    deltas.add(new Delta(entry.getKey(), bucket.hour, delta));
+                }
+                active |= bucket.hour > now - RING_HOURS;
+            }
+            if (!active) {
+                rings.remove(entry.getKey(), ring);
+            }
+        }
+
+        if (deltas.isEmpty()) {
+            return;
+        }
+
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, EngagementBucket.class);
+        for (Delta delta : deltas) {
+            bulk.upsert(new Query(Criteria.where("postId").is(delta.postId()).and("hour").is(delta.hour())),
+                    new Update().inc("count", delta.count())
+                            .setOnInsert("bucketStart", new Date(delta.hour() * HOUR_MILLIS)));
+        }
+        try {
+            bulk.execute();
+        } catch (Exception e) {
+            // Give the counts back so the next flush retries them
+            System.err.println("Error flushing engagement buckets: " + e.getMessage());
+            for (Delta delta : deltas) {
+                Ring ring = rings.computeIfAbsent(delta.postId(), id -> new Ring());
+                Bucket bucket = ring.bucket(delta.hour());
+                if (bucket != null) {
+                    bucket.unflushed.add(delta.count());
+                }
+            }
+        }
+    }
+
+    // Reloads the ring window from the compacted buckets so velocity survives restarts
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        long from = currentHour() - RING_HOURS + 1;
+        Query recent = new Query(Criteria.where("bucketStart").gte(new Date(from * HOUR_MILLIS)));
+        for (EngagementBucket stored : mongoTemplate.find(recent, EngagementBucket.class)) {
+            Bucket bucket = rings.computeIfAbsent(stored.getPostId(), id -> new Ring()).bucket(stored.getHour());
+            if (bucket != null) {
+                bucket.total.add(stored.getCount());
+            }
+        }
+    }
+
+    private static long currentHour() {
+        return System.currentTimeMillis() / HOUR_MILLIS;
+    }
+}
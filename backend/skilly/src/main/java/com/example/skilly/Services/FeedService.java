@@ -0,0 +1,263 @@
+package com.example.skilly.Services;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.ArrayOperators;
+import org.springframework.data.mongodb.core.aggregation.ConditionalOperators;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import com.example.skilly.DTOs.CursorPage;
+import com.example.skilly.Models.Post;
+import com.example.skilly.Models.Timeline;
+import com.example.skilly.Models.User;
+import com.example.skilly.Repositories.PostRepository;
+import com.example.skilly.Utils.CursorUtil;
+import com.example.skilly.Utils.FeedMerger;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+// Hybrid home feed. Posts from accounts with at most feed.celebrity-follower-threshold followers are
+// pushed to follower timelines on create; posts from bigger accounts are pulled and merged at read time.
+// A very high threshold gives pure push, 0 gives pure pull.
+@Service
+public class FeedService {
+
+    private static final int FAN_OUT_BATCH_SIZE = 1000;
+
+    private static final Sort NEWEST_FIRST = Sort.by(Sort.Direction.DESC, "createdAt", "id");
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private PostRepository postRepository;
+
+    @Value("${feed.timeline-max-length:500}")
+    private int timelineMaxLength;
+
+    @Value("${feed.celebrity-follower-threshold:10000}")
+    private int celebrityFollowerThreshold;
+
+    @Value("${feed.fan-out.threads:2}")
+    private int fanOutThreads;
+
+    @Value("${feed.fan-out.queue-capacity:10000}")
+    private int fanOutQueueCapacity;
+
+    // Fan-outs run here so creating a post doesn't wait on follower timelines. When the queue is
+    // full the creating request runs its own fan-out, which slows posting instead of dropping entries.
+    private ThreadPoolExecutor fanOutExecutor;
+
+    private final AtomicLong fanOuts = new AtomicLong();
+    private final AtomicLong fanOutsInCaller = new AtomicLong();
+    private final AtomicLong fanOutFailures = new AtomicLong();
+
+    private record FollowerCount(String id, int followerCount) {
+    }
+
+    @PostConstruct
+    void init() {
+        int threads = Math.max(1, fanOutThreads);
+        fanOutExecutor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, fanOutQueueCapacity)), runnable -> {
+                    Thread thread = new Thread(runnable, "feed-fan-out");
+                    thread.setDaemon(true);
+                    return thread;
+                }, (task, executor) -> {
+                    if (executor.isShutdown()) {
+                        throw new RejectedExecutionException("Fan-out executor is shut down");
+                    }
+                    fanOutsInCaller.incrementAndGet();
+                    task.run();
+                });
+    }
+
+    // Queues fanOut for a post that has just been saved. Failures are logged: the post is already
+    // stored, so a failed fan-out only means it's missing from some home feeds.
+    public void fanOutInBackground(Post post) {
+        fanOutExecutor.execute(() -> {
+            try {
+                fanOut(post);
+                fanOuts.incrementAndGet();
+            } catch (Exception e) {
+                fanOutFailures.incrementAndGet();
+                System.err.println("Error pushing post " + post.getId() + " to follower timelines: " + e.getMessage());
+            }
+        });
+    }
+
+    // Pushes a new post onto the author's timeline and, unless the author is above the threshold,
+    // onto the timelines of everyone following them
+    public void fanOut(Post post) {
+        List<String> recipients = new ArrayList<>();
+        recipients.add(post.getUserId());
+
+        List<FollowerCount> counts = followerCounts(List.of(post.getUserId()));
+        boolean celebrity = !counts.isEmpty() && counts.get(0).followerCount() > celebrityFollowerThreshold;
+        if (!counts.isEmpty() && !celebrity) {
+            Query authorQuery = new Query(Criteria.where("id").is(post.getUserId()));
+            authorQuery.fields().include("followers");
+            User author = mongoTemplate.findOne(authorQuery, User.class);
+            if (author != null && author.getFollowers() != null) {
+                recipients.addAll(author.getFollowers());
+            }
+        }
+
+        Timeline.Entry entry = new Timeline.Entry(post.getId(), post.getUserId(), post.getCreatedAt());
+        for (int from = 0; from < recipients.size(); from += FAN_OUT_BATCH_SIZE) {
+            List<String> batch = recipients.subList(from, Math.min(from + FAN_OUT_BATCH_SIZE, recipients.size()));
+            pushToTimelines(batch, entry);
+        }
+    }
+
+    private void pushToTimelines(List<String> userIds, Timeline.Entry entry) {
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Timeline.class);
+        for (String userId : userIds) {
+            // $sort + $slice keeps each timeline capped at the newest entries
+            bulk.upsert(new Query(Criteria.where("userId").is(userId)),
+                    new Update().push("entries")
+                            .sort(Sort.by(Sort.Direction.DESC, "createdAt"))
+                            .slice(timelineMaxLength)
+                            .each(entry));
+        }
+        bulk.execute();
+    }
+
+    public CursorPage<Post> getFeed(String userId, String cursor, int limit) {
+        CursorUtil.Cursor after = CursorUtil.decode(cursor);
+        List<List<Timeline.Entry>> sources = new ArrayList<>();
+        Map<String, Post> pulledPosts = new HashMap<>();
+
+        // Pushed entries
+        Timeline timeline = mongoTemplate.findById(userId, Timeline.class);
+        if (timeline != null && timeline.getEntries() != null) {
+            List<Timeline.Entry> pushed = new ArrayList<>();
+            for (Timeline.Entry entry : timeline.getEntries()) {
+                if (after == null || isBefore(entry, after)) {
+                    pushed.add(entry);
+                }
+            }
+            pushed.sort(FeedMerger.NEWEST_FIRST);
+            sources.add(pushed);
+        }
+
+        // Pulled entries: the next page of each followed account above the threshold
+        Pageable pageable = PageRequest.of(0, limit + 1, NEWEST_FIRST);
+        for (String authorId : followedCelebrities(userId)) {
+            List<Post> posts = after == null
+                    ? postRepository.findByUserId(authorId, pageable)
+                    : postRepository.findByUserIdPageBefore(authorId, after.createdAt(), after.id(), pageable);
+
+            List<Timeline.Entry> pulled = new ArrayList<>(posts.size());
+            for (Post post : posts) {
+                pulled.add(new Timeline.Entry(post.getId(), post.getUserId(), post.getCreatedAt()));
+                pulledPosts.put(post.getId(), post);
+            }
+            sources.add(pulled);
+        }
+
+        List<Timeline.Entry> merged = FeedMerger.merge(sources, limit + 1);
+        CursorPage<Timeline.Entry> entryPage = CursorPage.of(merged, limit,
+                entry -> CursorUtil.encode(entry.getCreatedAt(), entry.getPostId()));
+        return new CursorPage<>(loadPosts(entryPage.getItems(), pulledPosts), entryPage.getNextCursor());
+    }
+
+    private List<String> followedCelebrities(String userId) {
+        Query userQuery = new Query(Criteria.where("id").is(userId));
+        userQuery.fields().include("following");
+        User user = mongoTemplate.findOne(userQuery, User.class);
+        if (user == null || user.getFollowing() == null || user.getFollowing().isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        List<String> celebrities = new ArrayList<>();
+        for (FollowerCount count : followerCounts(user.getFollowing())) {
+            if (count.followerCount() > celebrityFollowerThreshold) {
+                celebrities.add(count.id());
+            }
+        }
+        return celebrities;
+    }
+
+    // Follower counts computed in the database, so large followers arrays never leave it
+    private List<FollowerCount> followerCounts(List<String> userIds) {
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.match(Criteria.where("id").in(userIds)),
+                Aggregation.project()
+                        .and(ArrayOperators.Size.lengthOfArray(
+                                ConditionalOperators.ifNull("followers").then(Collections.emptyList())))
+                        .as("followerCount"));
+        return mongoTemplate.aggregate(aggregation, User.class, FollowerCount.class).getMappedResults();
+    }
+
+    private static boolean isBefore(Timeline.Entry entry, CursorUtil.Cursor cursor) {
+        int byDate = entry.getCreatedAt().compareTo(cursor.createdAt());
+        return byDate < 0 || (byDate == 0 && entry.getPostId().compareTo(cursor.id()) < 0);
+    }
+
+    // Loads pushed posts in one query; posts deleted since they were pushed are skipped
+    private List<Post> loadPosts(List<Timeline.Entry> entries, Map<String, Post> alreadyLoaded) {
+        Map<String, Post> byId = new HashMap<>(alreadyLoaded);
+        List<String> missing = entries.stream()
+                .map(Timeline.Entry::getPostId)
+                .filter(id -> !byId.containsKey(id))
+                .toList();
+        for (Post post : postRepository.findAllById(missing)) {
+            byId.put(post.getId(), post);
+        }
+
+        List<Post> posts = new ArrayList<>(entries.size());
+        for (Timeline.Entry entry : entries) {
+            Post post = byId.get(entry.getPostId());
+            if (post != null) {
+                posts.add(post);
+            }
+        }
+        return posts;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("fanOuts", fanOuts.get());
+        stats.put("fanOutsInCaller", fanOutsInCaller.get());
+        stats.put("fanOutFailures", fanOutFailures.get());
+        stats.put("fanOutsQueued", fanOutExecutor.getQueue().size());
+        return stats;
+    }
+
+    // Lets queued fan-outs finish briefly; anything left is only missing from home feeds
+    @PreDestroy
+    public void shutdown() {
+        fanOutExecutor.shutdown();
+        try {
+            if (!fanOutExecutor.awaitTermination(10, TimeUnit.SECONDS)) {
+                fanOutExecutor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            fanOutExecutor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.skilly.Services;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+// Writes a whole collection as a JSON array straight from a Mongo cursor, one element at a time,
+// so the response never holds more than a cursor batch in memory and the first bytes go out as
+// soon as the first batch arrives. Uses the application's ObjectMapper, so elements serialize
+// exactly like the List responses they replace.
+@Service
+public class JsonStreamService {
+
+    private static final int CURSOR_BATCH_SIZE = 200;
+    private static final int FLUSH_EVERY = 100;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final AtomicLong streams = new AtomicLong();
+    private final AtomicLong elements = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+
+    public <T> StreamingResponseBody streamAll(Class<T> type, Sort sort) {
+        Query query = new Query().with(sort).cursorBatchSize(CURSOR_BATCH_SIZE);
+        // Flushing is done every FLUSH_EVERY elements instead of after each one
+        ObjectWriter writer = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        return output -> {
+            streams.incrementAndGet();
+            // The status is already committed once writing starts, so a failure part way through can
+            // only abort the response; the client sees a truncated array rather than a wrong one
+            try (Stream<T> cursor = mongoTemplate.stream(query, type);
+                    JsonGenerator generator = objectMapper.getFactory().createGenerator(output)) {
+                generator.writeStartArray();
+                int written = 0;
+                Iterator<T> items = cursor.iterator();
+                while (items.hasNext()) {
+                    writer.writeValue(generator, items.next());
+                    if (++written % FLUSH_EVERY == 0) {
+                        generator.flush();
+                    }
+                }
+                generator.writeEndArray();
+                elements.addAndGet(written);
+            } catch (IOException | RuntimeException e) {
+                // IOException is usually the client going away mid-stream
+                failures.incrementAndGet();
+                System.err.println("Error streaming " + type.getSimpleName() + " list: " + e.getMessage());
+                throw e;
+            }
+        };
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("streams", streams.get());
+        stats.put("elements", elements.get());
+        stats.put("failures", failures.get());
+        return stats;
+    }
+}
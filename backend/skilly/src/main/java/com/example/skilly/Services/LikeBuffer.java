@@ -0,0 +1,221 @@
+package com.example.skilly.Services;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.example.skilly.Models.Post;
+
+import jakarta.annotation.PreDestroy;
+
+// Coalesces like/unlike requests before they reach Mongo. Only the latest intent per (post, user)
+// is kept, so a burst of toggles becomes at most one conditional update per pair, and each flush
+// writes a batch of posts with a single bulk request. Off unless likes.buffer.enabled=true.
+@Service
+public class LikeBuffer {
+
+    private static final int FLUSH_BATCH_SIZE = 500;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private PostCache postCache;
+
+    @Autowired
+    private TrendingIndex trendingIndex;
+
+    @Autowired
+    private EngagementCounterStore engagementCounterStore;
+
+    @Value("${likes.buffer.enabled:false}")
+    private boolean enabled;
+
+    // postId -> userId -> liked, latest intent wins. Inner maps are only written inside compute on
+    // the outer key, so a flush that removes a post can't lose a concurrent intent.
+    private final ConcurrentHashMap<String, ConcurrentHashMap<String, Boolean>> pending = new ConcurrentHashMap<>();
+
+    // Intents taken by a running flush, still applied to reads until the bulk write has landed
+    private final ConcurrentHashMap<String, Map<String, Boolean>> flushing = new ConcurrentHashMap<>();
+
+    private final AtomicLong events = new AtomicLong();
+    private final AtomicLong collapsed = new AtomicLong();
+    private final AtomicLong writes = new AtomicLong();
+    private final AtomicLong flushes = new AtomicLong();
+    private final AtomicLong flushFailures = new AtomicLong();
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // Buffers the intent and returns the post as it will look once flushed
+    public Optional<Post> record(String postId, String userId, boolean liked) {
+        Optional<Post> stored = postCache.get(postId);
+        if (stored.isEmpty()) {
+            return Optional.empty();
+        }
+
+        Post post = copyOf(stored.get());
+        applyUnwritten(post);
+        boolean likedBefore = post.getLikes() != null && post.getLikes().contains(userId);
+
+        pending.compute(postId, (id, intents) -> {
+            ConcurrentHashMap<String, Boolean> updated = intents != null ? intents : new ConcurrentHashMap<>();
+            if (updated.put(userId, liked) != null) {
+                collapsed.incrementAndGet();
+            }
+            return updated;
+        });
+        events.incrementAndGet();
+
+        if (likedBefore != liked) {
+            apply(post, userId, liked);
+            engagementCounterStore.record(postId,
+                    liked ? EngagementCounterStore.LIKE_WEIGHT : -EngagementCounterStore.LIKE_WEIGHT);
+        }
+        return Optional.of(post);
+    }
+
+    // Returns the post with the intents that haven't been written yet applied, so the acting user
+    // sees their own like. The given post is left as it is, since it may be shared by PostCache.
+    public Post overlay(Post post) {
+        if (!flushing.containsKey(post.getId()) && !pending.containsKey(post.getId())) {
+            return post;
+        }
+        Post copy = copyOf(post);
+        applyUnwritten(copy);
+        return copy;
+    }
+
+    private void applyUnwritten(Post post) {
+        Map<String, Boolean> inFlight = flushing.get(post.getId());
+        Map<String, Boolean> intents = pending.get(post.getId());
+        if (inFlight != null) {
+            inFlight.forEach((userId, liked) -> apply(post, userId, liked));
+        }
+        if (intents != null) {
+            intents.forEach((userId, liked) -> apply(post, userId, liked));
+        }
+    }
+
+    private static Post copyOf(Post post) {
+        Post copy = new Post();
+        BeanUtils.copyProperties(post, copy);
+        return copy;
+    }
+
+    private static void apply(Post post, String userId, boolean liked) {
+        List<String> likes = post.getLikes() != null ? new ArrayList<>(post.getLikes()) : new ArrayList<>();
+        boolean present = likes.contains(userId);
+        if (liked && !present) {
+            likes.add(userId);
+            post.setLikeCount(post.getLikeCount() + 1);
+        } else if (!liked && present) {
+            likes.remove(userId);
+            post.setLikeCount(post.getLikeCount() - 1);
+        }
+        post.setLikes(likes);
+    }
+
+    @Scheduled(fixedDelayString = "${likes.buffer.flush-interval-ms:500}")
+    @PreDestroy
+    public void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        List<String> postIds = new ArrayList<>(pending.keySet());
+        for (int from = 0; from < postIds.size(); from += FLUSH_BATCH_SIZE) {
+            flushBatch(postIds.subList(from, Math.min(from + FLUSH_BATCH_SIZE, postIds.size())));
+        }
+    }
+
+    private void flushBatch(List<String> postIds) {
+        Map<String, Map<String, Boolean>> batch = new HashMap<>();
+        for (String postId : postIds) {
+            pending.computeIfPresent(postId, (id, intents) -> {
+                batch.put(id, intents);
+                flushing.put(id, intents);
+                return null;
+            });
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        // Same conditional updates as the unbuffered path, so likeCount stays in step with likes
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Post.class);
+        int operations = 0;
+        for (Map.Entry<String, Map<String, Boolean>> post : batch.entrySet()) {
+            for (Map.Entry<String, Boolean> intent : post.getValue().entrySet()) {
+                String userId = intent.getKey();
+                if (intent.getValue()) {
+                    bulk.updateOne(new Query(Criteria.where("id").is(post.getKey()).and("likes").ne(userId)),
+                            new Update().addToSet("likes", userId).inc("likeCount", 1));
+                } else {
+                    bulk.updateOne(new Query(Criteria.where("id").is(post.getKey()).and("likes").is(userId)),
+                            new Update().pull("likes", userId).inc("likeCount", -1));
+                }
+                operations++;
+            }
+        }
+
+        try {
+            bulk.execute();
+            writes.addAndGet(operations);
+            flushes.incrementAndGet();
+            trackCounters(batch.keySet());
+        } catch (Exception e) {
+            // Put the intents back under any newer ones so the next flush retries them
+            System.err.println("Error flushing buffered likes: " + e.getMessage());
+            flushFailures.incrementAndGet();
+            batch.forEach((postId, intents) -> pending.compute(postId, (id, newer) -> {
+                ConcurrentHashMap<String, Boolean> merged = new ConcurrentHashMap<>(intents);
+                if (newer != null) {
+                    merged.putAll(newer);
+                }
+                return merged;
+            }));
+        } finally {
+            // Even a failed bulk write may have applied some of its updates
+            batch.keySet().forEach(postCache::invalidate);
+            batch.forEach(flushing::remove);
+        }
+    }
+
+    // Re-reads the counters the flush produced so trending ranks the stored values
+    private void trackCounters(Iterable<String> postIds) {
+        Query query = new Query(Criteria.where("id").in(postIds));
+        query.fields().include("createdAt", "likeCount", "saveCount", "commentCount");
+        for (Post post : mongoTemplate.find(query, Post.class)) {
+            trendingIndex.track(post);
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("pendingPosts", pending.size());
+        stats.put("events", events.get());
+        stats.put("collapsedEvents", collapsed.get());
+        stats.put("writes", writes.get());
+        stats.put("flushes", flushes.get());
+        stats.put("flushFailures", flushFailures.get());
+        return stats;
+    }
+}
@@ -0,0 +1,126 @@
+package com.example.skilly.Services;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.UUID;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+import org.springframework.web.multipart.MultipartFile;
+
+// Stores media on the local disk for deployments without Cloudinary (media.storage=local), and
+// resolves the files that MediaController serves under /uploads. Files are spread over
+// <folder>/<aa>/<bb>/ directories by a hash of their name, so no directory grows past a few
+// thousand entries, and the public id is the path below the storage root.
+@Service
+public class LocalMediaStorage implements MediaStorage {
+
+    static final String URL_PREFIX = "/uploads/";
+    private static final long TRANSFER_CHUNK = 8L * 1024 * 1024;
+
+    // Same directory PostService.uploadImage writes to, so those files are served as well
+    @Value("${file.upload-dir:uploads}")
+    private String uploadDir;
+
+    // Prepended to returned urls, e.g. https://media.example.com; relative /uploads/... urls if empty
+    @Value("${media.local.public-url:}")
+    private String publicUrl;
+
+    @Override
+    public Map<String, String> uploadFile(MultipartFile file, String folder) throws IOException {
+        return store(file, folder);
+    }
+
+    @Override
+    public Map<String, String> uploadVideo(MultipartFile file, String folder) throws IOException {
+        // No transcoding here, so there's no duration to report
+        return store(file, folder);
+    }
+
+    private Map<String, String> store(MultipartFile file, String folder) throws IOException {
+        String name = UUID.randomUUID().toString().replace("-", "") + extension(file.getOriginalFilename());
+        String shard = hashPrefix(name);
+        String publicId = folder + "/" + shard.substring(0, 2) + "/" + shard.substring(2, 4) + "/" + name;
+        Path target = resolve(publicId);
+        if (target == null) {
+            throw new IOException("Invalid media folder: " + folder);
+        }
+        Files.createDirectories(target.getParent());
+
+        // Written under a temp name and moved into place, so a reader never sees a partial file.
+        // transferFrom lets the channel copy in large chunks instead of through a small heap buffer.
+        Path partial = Files.createTempFile(target.getParent(), ".upload-", ".part");
+        try (ReadableByteChannel in = Channels.newChannel(file.getInputStream());
+                FileChannel out = FileChannel.open(partial, StandardOpenOption.WRITE)) {
+            long position = 0;
+            long transferred;
+            while ((transferred = out.transferFrom(in, position, TRANSFER_CHUNK)) > 0) {
+                position += transferred;
+            }
+            out.force(false);
+        } catch (IOException e) {
+            Files.deleteIfExists(partial);
+            throw e;
+        }
+        Files.move(partial, target, StandardCopyOption.ATOMIC_MOVE);
+
+        Map<String, String> result = new HashMap<>();
+        result.put("url", publicUrl + URL_PREFIX + publicId);
+        result.put("public_id", publicId);
+        return result;
+    }
+
+    @Override
+    public boolean deleteFile(String publicId) {
+        Path path = publicId != null ? resolve(publicId) : null;
+        if (path == null) {
+            System.out.println("Cannot delete media: invalid publicId " + publicId);
+            return false;
+        }
+        try {
+            return Files.deleteIfExists(path);
+        } catch (IOException e) {
+            System.err.println("Error deleting local media " + publicId + ": " + e.getMessage());
+            return false;
+        }
+    }
+
+    // Maps a path below /uploads to a file under the storage root, or null if it would escape the root
+    public Path resolve(String relativePath) {
+        Path root = root();
+        Path path = root.resolve(relativePath).normalize();
+        return path.startsWith(root) && !path.equals(root) ? path : null;
+    }
+
+    private Path root() {
+        return Paths.get(uploadDir).toAbsolutePath().normalize();
+    }
+
+    private static String extension(String filename) {
+        String extension = StringUtils.getFilenameExtension(filename);
+        return extension != null && extension.matches("[A-Za-z0-9]{1,10}") ? "." + extension.toLowerCase() : "";
+    }
+
+    private static String hashPrefix(String name) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(name.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest, 0, 2);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.example.skilly.Services;
+
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import com.example.skilly.Models.MediaAsset;
+
+// Maps content digests to stored assets with reference counts, so an upload of bytes that are
+// already stored reuses the asset instead of uploading again. Every reference change is a single
+// conditional update, so concurrent uploads and deletes of the same content can't lose a count.
+// Assets the index doesn't know (stored before it existed) keep the old one-owner behaviour.
+@Service
+public class MediaAssetIndex {
+
+    private static final FindAndModifyOptions RETURN_NEW = FindAndModifyOptions.options().returnNew(true);
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong lostRaces = new AtomicLong();
+    private final AtomicLong released = new AtomicLong();
+    private final AtomicLong lastReferences = new AtomicLong();
+
+    // Takes a reference to the stored asset with this content and returns its upload result, or
+    // null if there is none. An asset whose count already reached zero is on its way out and
+    // can't be revived.
+    public Map<String, String> acquire(String digest, String resourceType) {
+        MediaAsset asset = mongoTemplate.findAndModify(
+                new Query(Criteria.where("id").is(key(digest, resourceType)).and("refCount").gt(0)),
+                new Update().inc("refCount", 1),
+                RETURN_NEW, MediaAsset.class);
+        if (asset == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        Map<String, String> result = new HashMap<>();
+        result.put("url", asset.getUrl());
+        result.put("public_id", asset.getPublicId());
+        if (asset.getDuration() != null) {
+            result.put("duration", asset.getDuration().toString());
+        }
+        return result;
+    }
+
+    // Records a fresh upload as the asset for its content, holding one reference. Returns false if
+    // another upload of the same content was recorded first.
+    public boolean register(String digest, String resourceType, Map<String, String> result) {
+        MediaAsset asset = new MediaAsset();
+        asset.setId(key(digest, resourceType));
+        asset.setResourceType(resourceType);
+        asset.setPublicId(result.get("public_id"));
+        asset.setUrl(result.get("url"));
+        if (result.containsKey("duration")) {
+            asset.setDuration(Integer.valueOf(result.get("duration")));
+        }
+        asset.setRefCount(1);
+        asset.setCreatedAt(new Date());
+        try {
+            mongoTemplate.insert(asset);
+            return true;
+        } catch (DuplicateKeyException e) {
+            lostRaces.incrementAndGet();
+            return false;
+        }
+    }
+
+    // What releasing a reference leaves the caller to do: destroy the asset or keep it. The
+    // resource type is the one the asset was uploaded as, or null for assets the index doesn't know.
+    public record Release(boolean destroy, String resourceType) {
+    }
+
+    // Drops one reference. The caller should destroy the asset when the last reference went away,
+    // or when the index doesn't know the asset at all.
+    public Release release(String publicId) {
+        MediaAsset asset = mongoTemplate.findAndModify(
+                new Query(Criteria.where("publicId").is(publicId).and("refCount").gt(0)),
+                new Update().inc("refCount", -1),
+                RETURN_NEW, MediaAsset.class);
+        if (asset == null) {
+            // Known but already at zero means another release is destroying it
+            boolean known = mongoTemplate.exists(new Query(Criteria.where("publicId").is(publicId)), MediaAsset.class);
+            return new Release(!known, null);
+        }
+        released.incrementAndGet();
+        if (asset.getRefCount() > 0) {
+            return new Release(false, asset.getResourceType());
+        }
+        // Still zero, since acquire never takes a reference at zero
+        mongoTemplate.remove(new Query(Criteria.where("id").is(asset.getId())), MediaAsset.class);
+        lastReferences.incrementAndGet();
+        return new Release(true, asset.getResourceType());
+    }
+
+    private static String key(String digest, String resourceType) {
+        return digest + ":" + resourceType;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("hits", hits.get());
+        stats.put("misses", misses.get());
+        stats.put("lostRaces", lostRaces.get());
+        stats.put("released", released.get());
+        stats.put("lastReferences", lastReferences.get());
+        return stats;
+    }
+}
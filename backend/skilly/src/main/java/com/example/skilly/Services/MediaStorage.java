@@ -0,0 +1,25 @@
+package com.example.skilly.Services;
+
+import java.io.IOException;
+import java.util.Map;
+
+import org.springframework.web.multipart.MultipartFile;
+
+// Where post media and profile pictures are stored. Uploads return "url" and "public_id" (and
+// "duration" for videos when the backend knows it); the public id is what deleteFile takes.
+// Backends may hand several uploads of the same bytes one shared asset, so deleteFile drops the
+// caller's reference and only removes the asset once no other upload holds it. It returns true
+// only when the asset was actually removed.
+// media.storage=cloudinary (the default) uses CloudinaryService, media.storage=local uses LocalMediaStorage.
+public interface MediaStorage {
+
+    Map<String, String> uploadFile(MultipartFile file, String folder) throws IOException;
+
+    Map<String, String> uploadVideo(MultipartFile file, String folder) throws IOException;
+
+    boolean deleteFile(String publicId);
+
+    default Map<String, String> uploadFile(MultipartFile file) throws IOException {
+        return uploadFile(file, "profile_pictures");
+    }
+}
@@ -0,0 +1,218 @@
+package com.example.skilly.Services;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalDouble;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import com.example.skilly.Utils.VideoDurationProbe;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+// Uploads all media of a post at once, so creating a post takes about as long as its slowest upload
+// instead of the sum of them. Uploads run on virtual threads, with a semaphore capping how many
+// are in flight across all requests. It's all or nothing: if any upload fails, or the video is
+// too long, the uploads that did succeed are deleted before the error is rethrown.
+@Service
+public class MediaUploadService {
+
+    static final int MAX_IMAGES = 3;
+    static final int MAX_VIDEO_SECONDS = 30;
+
+    @Autowired
+    private MediaStorage mediaStorage;
+
+    @Value("${media.upload.max-concurrent:16}")
+    private int maxConcurrent;
+
+    private Semaphore permits;
+
+    private final ExecutorService uploadExecutor = Executors.newVirtualThreadPerTaskExecutor();
+
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong uploads = new AtomicLong();
+    private final AtomicLong failedBatches = new AtomicLong();
+    private final AtomicLong deleted = new AtomicLong();
+    private final AtomicLong durationsProbed = new AtomicLong();
+    private final AtomicLong durationsUnknown = new AtomicLong();
+    private final AtomicLong rejectedBeforeUpload = new AtomicLong();
+
+    // Image urls and public ids in upload order, and the video's upload result if one was sent
+    public record UploadedMedia(List<String> mediaUrls, List<String> mediaPublicIds, Map<String, String> video) {
+    }
+
+    @PostConstruct
+    void init() {
+        permits = new Semaphore(Math.max(1, maxConcurrent));
+    }
+
+    // Validates everything before uploading anything, so a bad file doesn't leave assets behind
+    public UploadedMedia uploadAll(MultipartFile[] images, MultipartFile video) throws IOException {
+        List<MultipartFile> imageFiles = images != null ? List.of(images) : List.of();
+        MultipartFile videoFile = video != null && !video.isEmpty() ? video : null;
+        if (imageFiles.size() > MAX_IMAGES) {
+            throw new IllegalArgumentException("Maximum 3 images are allowed per post");
+        }
+        for (MultipartFile file : imageFiles) {
+            if (file.getContentType() == null || !file.getContentType().startsWith("image/")) {
+                throw new IllegalArgumentException("Only image files are allowed");
+            }
+        }
+        if (videoFile != null && (videoFile.getContentType() == null
+                || !videoFile.getContentType().startsWith("video/"))) {
+            throw new IllegalArgumentException("Only video files are allowed");
+        }
+        if (imageFiles.isEmpty() && videoFile == null) {
+            return new UploadedMedia(List.of(), List.of(), null);
+        }
+
+        // Over-long videos are turned away from their headers, before anything is uploaded. When the
+        // container isn't recognised, the duration the storage reports is checked after the upload.
+        OptionalDouble probedSeconds = videoFile != null ? probeDuration(videoFile) : OptionalDouble.empty();
+        if (probedSeconds.isPresent() && probedSeconds.getAsDouble() > MAX_VIDEO_SECONDS) {
+            rejectedBeforeUpload.incrementAndGet();
+            throw new IllegalArgumentException("Video duration exceeds the 30-second limit");
+        }
+        batches.incrementAndGet();
+
+        List<Future<Map<String, String>>> imageUploads = new ArrayList<>();
+        for (MultipartFile file : imageFiles) {
+            imageUploads.add(submit(() -> mediaStorage.uploadFile(file, "post_images")));
+        }
+        Future<Map<String, String>> videoUpload = videoFile != null
+                ? submit(() -> mediaStorage.uploadVideo(videoFile, "post_videos"))
+                : null;
+
+        // Wait for every upload, even after a failure, so each asset that was stored is known
+        List<String> uploaded = new ArrayList<>();
+        Exception failure = null;
+        List<Map<String, String>> imageResults = new ArrayList<>();
+        for (Future<Map<String, String>> upload : imageUploads) {
+            try {
+                Map<String, String> result = upload.get();
+                uploaded.add(result.get("public_id"));
+                imageResults.add(result);
+            } catch (ExecutionException | InterruptedException e) {
+                failure = failure != null ? failure : e;
+            }
+        }
+        Map<String, String> videoResult = null;
+        if (videoUpload != null) {
+            try {
+                videoResult = new HashMap<>(videoUpload.get());
+                uploaded.add(videoResult.get("public_id"));
+                if (!videoResult.containsKey("duration") && probedSeconds.isPresent()) {
+                    // Local storage doesn't report a duration; the headers do
+                    videoResult.put("duration", String.valueOf((int) probedSeconds.getAsDouble()));
+                }
+            } catch (ExecutionException | InterruptedException e) {
+                failure = failure != null ? failure : e;
+            }
+        }
+
+        if (failure == null && videoResult != null
+                && Integer.parseInt(videoResult.getOrDefault("duration", "0")) > MAX_VIDEO_SECONDS) {
+            failure = new IllegalArgumentException("Video duration exceeds the 30-second limit");
+        }
+        if (failure != null) {
+            failedBatches.incrementAndGet();
+            discard(uploaded);
+            throw rethrow(failure);
+        }
+
+        List<String> mediaUrls = new ArrayList<>();
+        List<String> mediaPublicIds = new ArrayList<>();
+        for (Map<String, String> result : imageResults) {
+            mediaUrls.add(result.get("url"));
+            mediaPublicIds.add(result.get("public_id"));
+        }
+        return new UploadedMedia(mediaUrls, mediaPublicIds, videoResult);
+    }
+
+    // Deletes assets that are no longer referenced, e.g. a post's old media once an update has saved
+    public void discard(List<String> publicIds) {
+        for (String publicId : publicIds) {
+            if (publicId != null && mediaStorage.deleteFile(publicId)) {
+                deleted.incrementAndGet();
+            }
+        }
+    }
+
+    private OptionalDouble probeDuration(MultipartFile video) {
+        OptionalDouble seconds;
+        try (InputStream in = video.getInputStream()) {
+            seconds = VideoDurationProbe.probeSeconds(in);
+        } catch (IOException e) {
+            seconds = OptionalDouble.empty();
+        }
+        (seconds.isPresent() ? durationsProbed : durationsUnknown).incrementAndGet();
+        return seconds;
+    }
+
+    private interface Upload {
+        Map<String, String> run() throws IOException;
+    }
+
+    private Future<Map<String, String>> submit(Upload upload) {
+        return uploadExecutor.submit(() -> {
+            permits.acquire();
+            try {
+                Map<String, String> result = upload.run();
+                uploads.incrementAndGet();
+                return result;
+            } finally {
+                permits.release();
+            }
+        });
+    }
+
+    private static IOException rethrow(Exception failure) {
+        if (failure instanceof InterruptedException) {
+            Thread.currentThread().interrupt();
+            return new IOException("Interrupted while uploading media", failure);
+        }
+        Throwable cause = failure instanceof ExecutionException ? failure.getCause() : failure;
+        if (cause instanceof RuntimeException runtime) {
+            throw runtime;
+        }
+        if (cause instanceof IOException io) {
+            return io;
+        }
+        return new IOException("Media upload failed: " + cause.getMessage(), cause);
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("maxConcurrent", maxConcurrent);
+        stats.put("inFlight", Math.max(1, maxConcurrent) - permits.availablePermits());
+        stats.put("batches", batches.get());
+        stats.put("uploads", uploads.get());
+        stats.put("failedBatches", failedBatches.get());
+        stats.put("deletedAssets", deleted.get());
+        stats.put("durationsProbed", durationsProbed.get());
+        stats.put("durationsUnknown", durationsUnknown.get());
+        stats.put("rejectedBeforeUpload", rejectedBeforeUpload.get());
+        return stats;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        uploadExecutor.shutdownNow();
+    }
+}
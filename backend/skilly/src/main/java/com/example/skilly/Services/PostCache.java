@@ -0,0 +1,226 @@
+package com.example.skilly.Services;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.example.skilly.Models.Comment;
+import com.example.skilly.Models.Post;
+import com.example.skilly.Repositories.PostRepository;
+
+// Bounded read-through cache in front of PostRepository.findById, evicting least recently used posts
+// once either the entry count or the estimated size in bytes is over its limit. Every post write
+// calls invalidate after it lands. Cached posts are shared, so callers must not modify them.
+// Hits take no lock: each entry records when it was last read, and whichever thread pushes the cache
+// over a limit evicts the least recently read entries in one batch, down to 90% of the limits.
+@Service
+public class PostCache {
+
+    @Autowired
+    private PostRepository postRepository;
+
+    @Value("${posts.cache.max-entries:10000}")
+    private int maxEntries;
+
+    @Value("${posts.cache.max-weight-bytes:67108864}")
+    private long maxWeight;
+
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>(256);
+    private final AtomicLong weight = new AtomicLong();
+    private final ReentrantLock evicting = new ReentrantLock();
+
+    // Ids with a load in progress. Invalidating one of them bumps its version, and a load only stores
+    // its result if the version is unchanged, so a read racing a write can't put the pre-write post
+    // back. Writes to other posts don't affect the load. A Loading is only touched inside compute on
+    // its own key, which also orders the version check and store against invalidate.
+    private final ConcurrentHashMap<String, Loading> loading = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+    private final LongAdder stalePutsSkipped = new LongAdder();
+
+    private static final class Entry {
+        final Post post;
+        final long weight;
+        volatile long lastRead = System.nanoTime();
+
+        Entry(Post post, long weight) {
+            this.post = post;
+            this.weight = weight;
+        }
+    }
+
+    private record Candidate(String id, Entry entry, long lastRead) {
+    }
+
+    private static final class Loading {
+        long version;
+        int loads;
+    }
+
+    public Optional<Post> get(String id) {
+        Entry entry = entries.get(id);
+        if (entry != null) {
+            entry.lastRead = System.nanoTime();
+            hits.increment();
+            return Optional.of(entry.post);
+        }
+        misses.increment();
+
+        long[] version = new long[1];
+        loading.compute(id, (key, state) -> {
+            Loading started = state != null ? state : new Loading();
+            started.loads++;
+            version[0] = started.version;
+            return started;
+        });
+
+        Optional<Post> loaded = Optional.empty();
+        try {
+            loaded = postRepository.findById(id);
+            return loaded;
+        } finally {
+            finishLoad(id, version[0], loaded.orElse(null));
+        }
+    }
+
+    private void finishLoad(String id, long version, Post post) {
+        long postWeight = post != null ? weigh(post) : 0;
+        loading.computeIfPresent(id, (key, state) -> {
+            if (post != null && postWeight <= maxWeight) {
+                if (version == state.version) {
+                    store(id, new Entry(post, postWeight));
+                } else {
+                    stalePutsSkipped.increment();
+                }
+            }
+            return --state.loads == 0 ? null : state;
+        });
+        if (entries.size() > maxEntries || weight.get() > maxWeight) {
+            evict();
+        }
+    }
+
+    private void store(String id, Entry entry) {
+        Entry previous = entries.put(id, entry);
+        weight.addAndGet(entry.weight - (previous != null ? previous.weight : 0));
+    }
+
+    // One thread evicts at a time; the others carry on, since it will get the cache back under the
+    // limits. Evicting a batch below them means this runs once per many inserts, not on every one.
+    private void evict() {
+        if (!evicting.tryLock()) {
+            return;
+        }
+        try {
+            long entryTarget = maxEntries - maxEntries / 10;
+            long weightTarget = maxWeight - maxWeight / 10;
+            if (entries.size() <= maxEntries && weight.get() <= maxWeight) {
+                return;
+            }
+            // Read times are copied first, since hits keep updating them while the list is sorted
+            List<Candidate> oldestFirst = new ArrayList<>(entries.size());
+            entries.forEach((id, entry) -> oldestFirst.add(new Candidate(id, entry, entry.lastRead)));
+            oldestFirst.sort(Comparator.comparingLong(Candidate::lastRead));
+            for (Candidate candidate : oldestFirst) {
+                if (entries.size() <= entryTarget && weight.get() <= weightTarget) {
+                    break;
+                }
+                // Skips entries replaced or invalidated since the snapshot
+                if (entries.remove(candidate.id(), candidate.entry())) {
+                    weight.addAndGet(-candidate.entry().weight);
+                    evictions.increment();
+                }
+            }
+        } finally {
+            evicting.unlock();
+        }
+    }
+
+    public void invalidate(String id) {
+        loading.computeIfPresent(id, (key, state) -> {
+            state.version++;
+            return state;
+        });
+        invalidations.increment();
+        remove(id);
+    }
+
+    public void invalidateAll() {
+        for (String id : loading.keySet()) {
+            loading.computeIfPresent(id, (key, state) -> {
+                state.version++;
+                return state;
+            });
+        }
+        invalidations.increment();
+        for (String id : entries.keySet()) {
+            remove(id);
+        }
+    }
+
+    private void remove(String id) {
+        Entry removed = entries.remove(id);
+        if (removed != null) {
+            weight.addAndGet(-removed.weight);
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        long hitCount = hits.sum();
+        long lookups = hitCount + misses.sum();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("entries", entries.size());
+        stats.put("weightBytes", weight.get());
+        stats.put("hits", hitCount);
+        stats.put("misses", lookups - hitCount);
+        stats.put("hitRatio", lookups == 0 ? 0.0 : (double) hitCount / lookups);
+        stats.put("evictions", evictions.sum());
+        stats.put("invalidations", invalidations.sum());
+        stats.put("stalePutsSkipped", stalePutsSkipped.sum());
+        return stats;
+    }
+
+    // Rough heap footprint: object headers plus two bytes per char of every string the post holds
+    static long weigh(Post post) {
+        long bytes = 128 + size(post.getId()) + size(post.getUserId()) + size(post.getUsername())
+                + size(post.getTitle()) + size(post.getContent()) + size(post.getVideoUrl())
+                + size(post.getVideoPublicId()) + size(post.getLikes()) + size(post.getSavedBy())
+                + size(post.getMediaUrls()) + size(post.getMediaPublicIds());
+        if (post.getComments() != null) {
+            for (Comment comment : post.getComments()) {
+                bytes += 64 + size(comment.getId()) + size(comment.getPostId()) + size(comment.getUserId())
+                        + size(comment.getContent());
+            }
+        }
+        return bytes;
+    }
+
+    private static long size(String value) {
+        return value == null ? 0 : 40 + 2L * value.length();
+    }
+
+    private static long size(List<String> values) {
+        if (values == null) {
+            return 0;
+        }
+        long bytes = 16 + 8L * values.size();
+        for (String value : values) {
+            bytes += size(value);
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,163 @@
+package com.example.skilly.Services;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.aggregation.ArithmeticOperators;
+import org.springframework.data.mongodb.core.aggregation.ArrayOperators;
+import org.springframework.data.mongodb.core.aggregation.ConditionalOperators;
+import org.springframework.data.mongodb.core.aggregation.ProjectionOperation;
+import org.springframework.data.mongodb.core.aggregation.StringOperators;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.stereotype.Service;
+
+import com.example.skilly.DTOs.CursorPage;
+import com.example.skilly.DTOs.PostCard;
+import com.example.skilly.Models.Post;
+import com.example.skilly.Utils.CursorUtil;
+
+// Builds PostCards with an aggregation that matches, sorts and limits on the posts collection and only
+// then projects the card fields, so the arrays and comments never leave the database.
+@Service
+public class PostCardService {
+
+    private static final int SNIPPET_LENGTH = 200;
+    private static final long THIRTY_DAYS_MILLIS = 30L * 24 * 60 * 60 * 1000;
+
+    private static final Sort NEWEST_FIRST = Sort.by(Sort.Direction.DESC, "createdAt", "id");
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private TrendingIndex trendingIndex;
+
+    @Autowired
+    private EngagementCounterStore engagementCounterStore;
+
+    public List<PostCard> getAllCards(String viewerId) {
+        return findCards(new Criteria(), NEWEST_FIRST, 0, viewerId);
+    }
+
+    public CursorPage<PostCard> getCardsPage(String cursor, int limit, String viewerId) {
+        return findCardsPage(new Criteria(), cursor, limit, viewerId);
+    }
+
+    public List<PostCard> getRecentCards(String viewerId) {
+        return findCards(Criteria.where("createdAt").gt(thirtyDaysAgo()), NEWEST_FIRST, 0, viewerId);
+    }
+
+    public CursorPage<PostCard> getRecentCardsPage(String cursor, int limit, String viewerId) {
+        return findCardsPage(Criteria.where("createdAt").gt(thirtyDaysAgo()), cursor, limit, viewerId);
+    }
+
+    public List<PostCard> getTrendingCards(int limit, String viewerId) {
+        return findCardsByIds(trendingIndex.topPostIds(limit), viewerId);
+    }
+
+    public List<PostCard> getVelocityTrendingCards(int limit, String viewerId) {
+        return findCardsByIds(engagementCounterStore.topPostIds(limit), viewerId);
+    }
+
+    // Cards for the first entries of a ranking snapshot, in snapshot order
+    public List<PostCard> getRankedCards(List<RankingSnapshotService.RankedPost> ranked, int limit, String viewerId) {
+        return findCardsByIds(ranked.stream().limit(limit).map(RankingSnapshotService.RankedPost::postId).toList(),
+                viewerId);
+    }
+
+    // Same ranking as PostService.getPopularPosts: top likes + comments over the last 30 days
+    public List<PostCard> getPopularCards(int limit, String viewerId) {
+        List<AggregationOperation> operations = new ArrayList<>();
+        operations.add(Aggregation.match(Criteria.where("createdAt").gt(thirtyDaysAgo())));
+        // Project before sorting so the sort stage only holds card-sized documents
+        operations.add(cardProjection(viewerId)
+                .and(ArithmeticOperators.Add.valueOf("likeCount").add("commentCount")).as("popularity"));
+        operations.add(Aggregation.sort(Sort.by(Sort.Direction.DESC, "popularity", "createdAt")));
+        operations.add(Aggregation.limit(limit));
+        return aggregate(operations);
+    }
+
+    public List<PostCard> searchCards(String keyword, String viewerId) {
+        // Same match as PostRepository.findByTitleContainingIgnoreCase
+        Criteria titleContains = Criteria.where("title").regex(Pattern.quote(keyword), "i");
+        return findCards(titleContains, null, 0, viewerId);
+    }
+
+    private CursorPage<PostCard> findCardsPage(Criteria criteria, String cursor, int limit, String viewerId) {
+        CursorUtil.Cursor after = CursorUtil.decode(cursor);
+        if (after != null) {
+            criteria = new Criteria().andOperator(criteria, new Criteria().orOperator(
+                    Criteria.where("createdAt").lt(after.createdAt()),
+                    Criteria.where("createdAt").is(after.createdAt()).and("id").lt(after.id())));
+        }
+
+        List<PostCard> cards = findCards(criteria, NEWEST_FIRST, limit + 1, viewerId);
+        return CursorPage.of(cards, limit, card -> CursorUtil.encode(card.getCreatedAt(), card.getId()));
+    }
+
+    // A limit of 0 means no limit
+    private List<PostCard> findCards(Criteria criteria, Sort sort, int limit, String viewerId) {
+        List<AggregationOperation> operations = new ArrayList<>();
+        operations.add(Aggregation.match(criteria));
+        if (sort != null) {
+            operations.add(Aggregation.sort(sort));
+        }
+        if (limit > 0) {
+            operations.add(Aggregation.limit(limit));
+        }
+        operations.add(cardProjection(viewerId));
+        return aggregate(operations);
+    }
+
+    // Cards for posts ranked elsewhere, returned in the order of the given ids
+    private List<PostCard> findCardsByIds(List<String> ids, String viewerId) {
+        Map<String, PostCard> byId = new HashMap<>();
+        for (PostCard card : findCards(Criteria.where("id").in(ids), null, 0, viewerId)) {
+            byId.put(card.getId(), card);
+        }
+
+        List<PostCard> ordered = new ArrayList<>(ids.size());
+        for (String id : ids) {
+            PostCard card = byId.get(id);
+            if (card != null) {
+                ordered.add(card);
+            }
+        }
+        return ordered;
+    }
+
+    private ProjectionOperation cardProjection(String viewerId) {
+        // An anonymous viewer matches no array element, so both flags come out false
+        String viewer = viewerId != null ? viewerId : "";
+        return Aggregation.project("userId", "postType", "title", "mediaUrls", "videoUrl",
+                        "videoDuration", "likeCount", "saveCount", "commentCount", "createdAt")
+                // Author name and avatar come from the snapshot on the post, not from users
+                .and(ConditionalOperators.ifNull("author.username").thenValueOf("username")).as("username")
+                .and("author.profilePicUrl").as("authorAvatarUrl")
+                .and(StringOperators.valueOf(ConditionalOperators.ifNull("content").then(""))
+                        .substringCP(0, SNIPPET_LENGTH)).as("snippet")
+                .and(ArrayOperators.In.arrayOf(ConditionalOperators.ifNull("likes").then(Collections.emptyList()))
+                        .containsValue(viewer)).as("likedByMe")
+                .and(ArrayOperators.In.arrayOf(ConditionalOperators.ifNull("savedBy").then(Collections.emptyList()))
+                        .containsValue(viewer)).as("savedByMe");
+    }
+
+    private List<PostCard> aggregate(List<AggregationOperation> operations) {
+        return mongoTemplate.aggregate(Aggregation.newAggregation(operations), Post.class, PostCard.class)
+                .getMappedResults();
+    }
+
+    private static Date thirtyDaysAgo() {
+        return new Date(System.currentTimeMillis() - THIRTY_DAYS_MILLIS);
+    }
+}
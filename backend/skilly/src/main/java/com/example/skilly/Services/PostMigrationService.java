@@ -0,0 +1,181 @@
+package com.example.skilly.Services;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndReplaceOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationExpression;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.aggregation.ArrayOperators;
+import org.springframework.data.mongodb.core.aggregation.ConditionalOperators;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import com.example.skilly.Models.Comment;
+import com.example.skilly.Models.Migration;
+import com.example.skilly.Models.Post;
+import com.example.skilly.Models.SavedPost;
+import com.example.skilly.Models.User;
+import com.mongodb.client.result.UpdateResult;
+
+import jakarta.annotation.PostConstruct;
+
+// One-off data migrations for posts written before a schema change. Each step only touches
+// documents that still need it, so a step interrupted half way can simply run again. A step that
+// completes is recorded in the migrations collection and skipped on later startups, since some of
+// them scan collections without an index. They run before the web server starts so no request
+// sees a half-migrated post.
+@Service
+public class PostMigrationService {
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @PostConstruct
+    public void migrate() {
+        runOnce("post-engagement-counters", this::backfillCounters);
+        runOnce("post-embedded-comments", this::moveEmbeddedComments);
+        runOnce("saved-posts-collection", this::backfillSavedPosts);
+        runOnce("post-author-snapshots", this::backfillAuthorSnapshots);
+    }
+
+    // Runs the step unless a marker says it already completed. Instances starting together may both
+    // run it, which the steps allow; the marker is saved rather than inserted so both can record it.
+    private void runOnce(String name, Runnable step) {
+        if (mongoTemplate.exists(new Query(Criteria.where("id").is(name)), Migration.class)) {
+            return;
+        }
+        step.run();
+        mongoTemplate.save(new Migration(name, new Date()));
+    }
+
+    // Sets likeCount/saveCount/commentCount from the array sizes on posts that predate the counters
+    private void backfillCounters() {
+        Query missingCounters = new Query(new Criteria().orOperator(
+                Criteria.where("likeCount").exists(false),
+                Criteria.where("saveCount").exists(false),
+                Criteria.where("commentCount").exists(false)));
+
+        AggregationUpdate counters = AggregationUpdate.update()
+                .set("likeCount").toValueOf(sizeOf("likes"))
+                .set("saveCount").toValueOf(sizeOf("savedBy"))
+                .set("commentCount").toValueOf(sizeOf("comments"));
+
+        UpdateResult result = mongoTemplate.updateMulti(missingCounters, counters, Post.class);
+        if (result.getModifiedCount() > 0) {
+            System.out.println("Backfilled engagement counters on " + result.getModifiedCount() + " posts");
+        }
+    }
+
+    // Copies comments embedded in posts into the comments collection and trims the post down to a preview.
+    // Comments written by the current code carry a postId, so only legacy embedded ones match.
+    private void moveEmbeddedComments() {
+        Query legacyComments = new Query(Criteria.where("comments").elemMatch(Criteria.where("postId").exists(false)));
+        legacyComments.fields().include("comments");
+
+        int migratedPosts = 0;
+        try (Stream<Post> posts = mongoTemplate.stream(legacyComments, Post.class)) {
+            for (Post post : (Iterable<Post>) posts::iterator) {
+                List<Comment> comments = new ArrayList<>(post.getComments());
+                comments.sort(Comparator.comparing(Comment::getCreatedAt, Comparator.nullsFirst(Comparator.naturalOrder())));
+
+                // Upsert by id so a migration interrupted half way can simply run again
+                BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Comment.class);
+                for (Comment comment : comments) {
+                    if (comment.getId() == null) {
+                        comment.setId(UUID.randomUUID().toString());
+                    }
+                    comment.setPostId(post.getId());
+                    bulk.replaceOne(new Query(Criteria.where("id").is(comment.getId())), comment,
+                            FindAndReplaceOptions.options().upsert());
+                }
+                bulk.execute();
+
+                List<Comment> preview = comments.subList(
+                        Math.max(0, comments.size() - PostService.COMMENT_PREVIEW_SIZE), comments.size());
+                mongoTemplate.updateFirst(new Query(Criteria.where("id").is(post.getId())),
+                        new Update().set("comments", preview).set("commentCount", comments.size()),
+                        Post.class);
+                migratedPosts++;
+            }
+        }
+
+        if (migratedPosts > 0) {
+            System.out.println("Moved embedded comments of " + migratedPosts + " posts to the comments collection");
+        }
+    }
+
+    // Creates the savedPosts rows for saves recorded only in Post.savedBy. Skipped once the number of
+    // rows matches the sum of saveCount; savedAt falls back to the post's creation time.
+    private void backfillSavedPosts() {
+        Aggregation totalSaves = Aggregation.newAggregation(
+                Aggregation.group().sum("saveCount").as("total"));
+        Document result = mongoTemplate.aggregate(totalSaves, Post.class, Document.class).getUniqueMappedResult();
+        long expected = result != null ? ((Number) result.get("total")).longValue() : 0;
+        if (expected == mongoTemplate.estimatedCount(SavedPost.class)) {
+            return;
+        }
+
+        Query savedPosts = new Query(Criteria.where("savedBy.0").exists(true));
+        savedPosts.fields().include("savedBy", "createdAt");
+
+        long upserted = 0;
+        try (Stream<Post> posts = mongoTemplate.stream(savedPosts, Post.class)) {
+            for (Post post : (Iterable<Post>) posts::iterator) {
+                // Upsert on (userId, postId) so rows written since the save are left as they are
+                BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, SavedPost.class);
+                for (String userId : post.getSavedBy()) {
+                    bulk.upsert(new Query(Criteria.where("userId").is(userId).and("postId").is(post.getId())),
+                            new Update().setOnInsert("savedAt", post.getCreatedAt()));
+                }
+                upserted += bulk.execute().getUpserts().size();
+            }
+        }
+
+        if (upserted > 0) {
+            System.out.println("Backfilled " + upserted + " saved posts");
+        }
+    }
+
+    // Copies the author's current username and avatar onto posts written before the snapshot existed.
+    // Posts of deleted users keep matching, which is fine since the step runs once.
+    private void backfillAuthorSnapshots() {
+        Query withoutSnapshot = new Query(Criteria.where("author").exists(false));
+        List<String> userIds = mongoTemplate.findDistinct(withoutSnapshot, "userId", Post.class, String.class);
+        if (userIds.isEmpty()) {
+            return;
+        }
+
+        Query authors = new Query(Criteria.where("id").in(userIds));
+        authors.fields().include("username", "profilePicUrl", "profileVersion");
+        long updated = 0;
+        for (User author : mongoTemplate.find(authors, User.class)) {
+            updated += mongoTemplate.updateMulti(
+                    new Query(Criteria.where("userId").is(author.getId()).and("author").exists(false)),
+                    new Update().set("author", AuthorSnapshotService.snapshotOf(author))
+                            .set("username", author.getUsername()),
+                    Post.class).getModifiedCount();
+        }
+
+        if (updated > 0) {
+            System.out.println("Backfilled the author snapshot on " + updated + " posts");
+        }
+    }
+
+    private static AggregationExpression sizeOf(String arrayField) {
+        return ArrayOperators.Size.lengthOfArray(
+                ConditionalOperators.ifNull(arrayField).then(Collections.emptyList()));
+    }
+}
@@ -6,17 +6,35 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.*;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.stream.Collectors;
 
+import com.example.skilly.DTOs.CursorPage;
 import com.example.skilly.Models.PostType;
+import com.example.skilly.Utils.CursorUtil;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.ArithmeticOperators;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
 import com.example.skilly.Models.Comment;
 import com.example.skilly.Models.Post;
+import com.example.skilly.Models.SavedPost;
+import com.example.skilly.Models.User;
+import com.example.skilly.Repositories.CommentRepository;
 import com.example.skilly.Repositories.PostRepository;
+import com.example.skilly.Repositories.SavedPostRepository;
+import com.mongodb.client.result.UpdateResult;
 
 @Service
 public class PostService {
@@ -25,15 +43,63 @@ public class PostService {
     private PostRepository postRepository;
 
     @Autowired
-    private CloudinaryService cloudinaryService;
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private CommentRepository commentRepository;
+
+    @Autowired
+    private MediaStorage mediaStorage;
+
+    @Autowired
+    private MediaUploadService mediaUploadService;
+
+    @Autowired
+    private ResumableUploadService resumableUploadService;
+
+    @Autowired
+    private TrendingIndex trendingIndex;
+
+    @Autowired
+    private FeedService feedService;
+
+    @Autowired
+    private EngagementCounterStore engagementCounterStore;
+
+    @Autowired
+    private LikeBuffer likeBuffer;
+
+    @Autowired
+    private SavedPostRepository savedPostRepository;
+
+    @Autowired
+    private PostCache postCache;
 
     @Value("${file.upload-dir:uploads}")
     private String uploadDir;
 
+    // Matches the (createdAt, _id) compound indexes declared on Post
+    private static final Sort NEWEST_FIRST = Sort.by(Sort.Direction.DESC, "createdAt", "id");
+
+    private static final Sort LATEST_SAVE_FIRST = Sort.by(Sort.Direction.DESC, "savedAt", "postId");
+
+    // Number of latest comments embedded in each post
+    static final int COMMENT_PREVIEW_SIZE = 3;
+
+    private static final int PREVIEW_REFILL_ATTEMPTS = 3;
+
+    private static final FindAndModifyOptions RETURN_NEW = FindAndModifyOptions.options().returnNew(true);
+
     public double calculateTrendingScore(Post post) {
+        return calculateTrendingScore(post.getCreatedAt().getTime(), post.getLikeCount(), post.getSaveCount(),
+                post.getCommentCount(), System.currentTimeMillis());
+    }
+
+    // Same scoring as above, from plain counts so the trending index can rescore without loading the post
+    public static double calculateTrendingScore(long createdAtMillis, int likesCount, int savesCount,
+            int commentsCount, long now) {
         // First, check if the post is older than 30 days (exclude entirely)
-        long now = System.currentTimeMillis();
-        long postAgeMillis = now - post.getCreatedAt().getTime();
+        long postAgeMillis = now - createdAtMillis;
         double ageInDays = postAgeMillis / (1000.0 * 60 * 60 * 24.0);
 
         // Skip posts older than 30 days entirely
@@ -41,9 +107,6 @@ public class PostService {
             return 0; // Return 0 instead of -1 to exclude from trending
         }
 
-        int likesCount = post.getLikes() != null ? post.getLikes().size() : 0;
-        int savesCount = post.getSavedBy() != null ? post.getSavedBy().size() : 0;
-        int commentsCount = post.getComments() != null ? post.getComments().size() : 0;
         int totalEngagement = likesCount + savesCount + commentsCount;
 
         // Minimum engagement requirement: At least 2 interactions
@@ -70,15 +133,68 @@ public class PostService {
     }
 
     public Optional<Post> findById(String id) {
-        return postRepository.findById(id);
+        return postCache.get(id).map(likeBuffer::overlay);
     }
 
     public List<Post> findByUserId(String userId) {
         return postRepository.findByUserId(userId);
     }
 
+    // Cursor pagination: each page is an index range read of limit + 1 posts, however deep the cursor is
+    public CursorPage<Post> findPage(String cursor, int limit) {
+        CursorUtil.Cursor after = CursorUtil.decode(cursor);
+        Pageable pageable = PageRequest.of(0, limit + 1, NEWEST_FIRST);
+
+        List<Post> posts = after == null
+                ? postRepository.findAllBy(pageable)
+                : postRepository.findPageBefore(after.createdAt(), after.id(), pageable);
+        return toCursorPage(posts, limit);
+    }
+
+    public CursorPage<Post> findPageByUserId(String userId, String cursor, int limit) {
+        CursorUtil.Cursor after = CursorUtil.decode(cursor);
+        Pageable pageable = PageRequest.of(0, limit + 1, NEWEST_FIRST);
+
+        List<Post> posts = after == null
+                ? postRepository.findByUserId(userId, pageable)
+                : postRepository.findByUserIdPageBefore(userId, after.createdAt(), after.id(), pageable);
+        return toCursorPage(posts, limit);
+    }
+
+    // Most recently saved first; the cursor is the (savedAt, postId) of the last save on the page
+    public CursorPage<Post> getSavedPostsPage(String userId, String cursor, int limit) {
+        CursorUtil.Cursor after = CursorUtil.decode(cursor);
+        Pageable pageable = PageRequest.of(0, limit + 1, LATEST_SAVE_FIRST);
+
+        List<SavedPost> saves = after == null
+                ? savedPostRepository.findByUserId(userId, pageable)
+                : savedPostRepository.findByUserIdPageBefore(userId, after.createdAt(), after.id(), pageable);
+        CursorPage<SavedPost> savePage = CursorPage.of(saves, limit,
+                save -> CursorUtil.encode(save.getSavedAt(), save.getPostId()));
+        List<Post> posts = findAllInOrder(savePage.getItems().stream().map(SavedPost::getPostId).toList());
+        return new CursorPage<>(posts, savePage.getNextCursor());
+    }
+
+    public CursorPage<Post> getRecentPostsPage(String cursor, int limit) {
+        CursorUtil.Cursor after = CursorUtil.decode(cursor);
+        Pageable pageable = PageRequest.of(0, limit + 1, NEWEST_FIRST);
+        long thirtyDaysMillis = 30L * 24 * 60 * 60 * 1000;
+        Date cutoffDate = new Date(System.currentTimeMillis() - thirtyDaysMillis);
+
+        List<Post> posts = after == null
+                ? postRepository.findByCreatedAtAfter(cutoffDate, pageable)
+                : postRepository.findRecentPageBefore(cutoffDate, after.createdAt(), after.id(), pageable);
+        return toCursorPage(posts, limit);
+    }
+
+    private CursorPage<Post> toCursorPage(List<Post> posts, int limit) {
+        return CursorPage.of(posts, limit, post -> CursorUtil.encode(post.getCreatedAt(), post.getId()));
+    }
+
     public Post save(Post post) {
-        return postRepository.save(post);
+        Post saved = postRepository.save(post);
+        postCache.invalidate(saved.getId());
+        return saved;
     }
 
     public void deleteById(String id) {
@@ -87,48 +203,97 @@ public class PostService {
             deletePostMedia(post);
             // Then delete the post
             postRepository.deleteById(id);
+            postCache.invalidate(id);
+            commentRepository.deleteByPostId(id);
+            savedPostRepository.deleteByPostId(id);
+            trendingIndex.remove(id);
         });
     }
 
     public Optional<Post> toggleSavePost(String id, String userId) {
-        return postRepository.findById(id).map(post -> {
-            List<String> savedBy = post.getSavedBy();
-            if (savedBy.contains(userId)) {
-                savedBy.remove(userId);
-            } else {
-                savedBy.add(userId);
+        // Each branch only matches in its own state, so concurrent toggles can't double count
+        Post post = mongoTemplate.findAndModify(
+                new Query(Criteria.where("id").is(id).and("savedBy").ne(userId)),
+                new Update().addToSet("savedBy", userId).inc("saveCount", 1),
+                RETURN_NEW, Post.class);
+        int weight = EngagementCounterStore.SAVE_WEIGHT;
+        if (post != null) {
+            postCache.invalidate(id);
+            mongoTemplate.upsert(
+                    new Query(Criteria.where("userId").is(userId).and("postId").is(id)),
+                    new Update().setOnInsert("savedAt", new Date()),
+                    SavedPost.class);
+        } else {
+            post = mongoTemplate.findAndModify(
+                    new Query(Criteria.where("id").is(id).and("savedBy").is(userId)),
+                    new Update().pull("savedBy", userId).inc("saveCount", -1),
+                    RETURN_NEW, Post.class);
+            weight = -EngagementCounterStore.SAVE_WEIGHT;
+            if (post != null) {
+                postCache.invalidate(id);
+                savedPostRepository.deleteByUserIdAndPostId(userId, id);
             }
-            return postRepository.save(post);
-        });
+        }
+        if (post == null) {
+            // Missing post, or another toggle won the race in between
+            return findById(id);
+        }
+
+        trendingIndex.track(post);
+        engagementCounterStore.record(id, weight);
+        return Optional.of(likeBuffer.overlay(post));
     }
 
     public List<Post> getSavedPostsByUser(String userId) {
-        return postRepository.findBySavedByContaining(userId);
-    }
-
-    public List<Post> getTrendingPosts() {
-        long now = System.currentTimeMillis();
-
-        return postRepository.findAll().stream()
-                // 1️⃣ FILTER posts older than 30 days
-                .filter(post -> {
-                    long ageMillis = now - post.getCreatedAt().getTime();
-                    double ageInDays = ageMillis / (1000.0 * 60 * 60 * 24.0);
-                    return ageInDays <= 30;
-                })
-                // 2️⃣ FILTER posts with very low engagement (optional, your choice)
-                .filter(post -> {
-                    int totalEngagement = (post.getLikes() != null ? post.getLikes().size() : 0)
-                            + (post.getSavedBy() != null ? post.getSavedBy().size() : 0)
-                            + (post.getComments() != null ? post.getComments().size() : 0);
-                    return totalEngagement >= 2;
-                })
-                // 3️⃣ SORT by score
-                .sorted((p1, p2) -> Double.compare(
-                        calculateTrendingScore(p2),
-                        calculateTrendingScore(p1)
-                ))
-                .collect(Collectors.toList());
+        List<String> postIds = savedPostRepository.findByUserIdOrderBySavedAtDescPostIdDesc(userId).stream()
+                .map(SavedPost::getPostId)
+                .toList();
+        return findAllInOrder(postIds);
+    }
+
+    // Whether the user has saved each of the given posts, read from the (userId, postId) index
+    public Map<String, Boolean> getSavedStatus(String userId, List<String> postIds) {
+        Map<String, Boolean> status = new LinkedHashMap<>();
+        for (String postId : postIds) {
+            status.put(postId, false);
+        }
+        for (SavedPost save : savedPostRepository.findByUserIdAndPostIdIn(userId, status.keySet())) {
+            status.put(save.getPostId(), true);
+        }
+        return status;
+    }
+
+    public List<Post> getTrendingPosts(int limit) {
+        // The index keeps posts ranked as engagement arrives, so only the top ids are fetched
+        List<String> ids = trendingIndex.topPostIds(limit);
+        return findAllInOrder(ids);
+    }
+
+    // Posts gaining engagement fastest over the last day, from the hourly counters
+    public List<Post> getVelocityTrendingPosts(int limit) {
+        return findAllInOrder(engagementCounterStore.topPostIds(limit));
+    }
+
+    // The first entries of a ranking snapshot, in snapshot order
+    public List<Post> getRankedPosts(List<RankingSnapshotService.RankedPost> ranked, int limit) {
+        return findAllInOrder(ranked.stream().limit(limit).map(RankingSnapshotService.RankedPost::postId).toList());
+    }
+
+    // Loads posts by id in one query and returns them in the order of the given ids
+    private List<Post> findAllInOrder(List<String> ids) {
+        Map<String, Post> byId = new HashMap<>();
+        for (Post post : postRepository.findAllById(ids)) {
+            byId.put(post.getId(), post);
+        }
+
+        List<Post> ordered = new ArrayList<>(ids.size());
+        for (String id : ids) {
+            Post post = byId.get(id);
+            if (post != null) {
+                ordered.add(post);
+            }
+        }
+        return ordered;
     }
 
     public List<Post> getRecentPosts() {
@@ -143,43 +308,61 @@ public class PostService {
                 .collect(Collectors.toList());
     }
 
-    public List<Post> getPopularPosts() {
+    public List<Post> getPopularPosts(int limit) {
         // 30 days ago
         long thirtyDaysMillis = 30L * 24 * 60 * 60 * 1000;
         Date cutoffDate = new Date(System.currentTimeMillis() - thirtyDaysMillis);
 
-        // Get posts within last 30 days
-        return postRepository.findByCreatedAtAfter(cutoffDate)
-                .stream()
-                // Calculate total likes + comments
-                .sorted((p1, p2) -> {
-                    int p1Score = (p1.getLikes() != null ? p1.getLikes().size() : 0)
-                            + (p1.getComments() != null ? p1.getComments().size() : 0);
-
-                    int p2Score = (p2.getLikes() != null ? p2.getLikes().size() : 0)
-                            + (p2.getComments() != null ? p2.getComments().size() : 0);
-
-                    return Integer.compare(p2Score, p1Score);
-                })
-                .collect(Collectors.toList());
+        // Rank by the stored like + comment counters inside Mongo; $sort followed by $limit
+        // keeps only the top N while sorting, and only those N posts are returned
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.match(Criteria.where("createdAt").gt(cutoffDate)),
+                Aggregation.addFields().addFieldWithValue("popularity",
+                        ArithmeticOperators.Add.valueOf("likeCount").add("commentCount")).build(),
+                Aggregation.sort(Sort.by(Sort.Direction.DESC, "popularity", "createdAt")),
+                Aggregation.limit(limit));
+        return mongoTemplate.aggregate(aggregation, Post.class, Post.class).getMappedResults();
     }
 
-
     public Optional<Post> likePost(String id, String userId) {
-        return postRepository.findById(id).map(post -> {
-            if (!post.getLikes().contains(userId)) {
-                post.getLikes().add(userId);
-                return postRepository.save(post);
-            }
-            return post;
-        });
+        if (likeBuffer.isEnabled()) {
+            return likeBuffer.record(id, userId, true);
+        }
+
+        // Matches only if the user hasn't liked the post yet, so likeCount stays in step with likes
+        Post post = mongoTemplate.findAndModify(
+                new Query(Criteria.where("id").is(id).and("likes").ne(userId)),
+                new Update().addToSet("likes", userId).inc("likeCount", 1),
+                RETURN_NEW, Post.class);
+        if (post == null) {
+            // Already liked (nothing to change) or missing
+            return findById(id);
+        }
+
+        postCache.invalidate(id);
+        trendingIndex.track(post);
+        engagementCounterStore.record(id, EngagementCounterStore.LIKE_WEIGHT);
+        return Optional.of(post);
     }
 
     public Optional<Post> unlikePost(String id, String userId) {
-        return postRepository.findById(id).map(post -> {
-            post.getLikes().remove(userId);
-            return postRepository.save(post);
-        });
+        if (likeBuffer.isEnabled()) {
+            return likeBuffer.record(id, userId, false);
+        }
+
+        Post post = mongoTemplate.findAndModify(
+                new Query(Criteria.where("id").is(id).and("likes").is(userId)),
+                new Update().pull("likes", userId).inc("likeCount", -1),
+                RETURN_NEW, Post.class);
+        if (post == null) {
+            // Not liked (nothing to change) or missing
+            return findById(id);
+        }
+
+        postCache.invalidate(id);
+        trendingIndex.track(post);
+        engagementCounterStore.record(id, -EngagementCounterStore.LIKE_WEIGHT);
+        return Optional.of(post);
     }
 
     public String uploadImage(MultipartFile file) throws IOException {
@@ -203,40 +386,16 @@ public class PostService {
         return "/uploads/" + filename;
     }
 
-    public List<Map<String, String>> uploadPostImages(MultipartFile[] files) throws IOException {
-        // Check if we have more than 3 images
-        if (files.length > 3) {
-            throw new IllegalArgumentException("Maximum 3 images are allowed per post");
-        }
-
-        List<Map<String, String>> results = new ArrayList<>();
-        for (MultipartFile file : files) {
-            // Check if file is an image
-            if (!file.getContentType().startsWith("image/")) {
-                throw new IllegalArgumentException("Only image files are allowed");
-            }
-
-            Map<String, String> uploadResult = cloudinaryService.uploadFile(file, "post_images");
-            results.add(uploadResult);
+    // videoUploadId attaches a video stored beforehand through a resumable upload instead of a multipart one
+    public Post createPost(User author, String title, String content, PostType postType,
+            MultipartFile[] images, MultipartFile video, String videoUploadId) throws IOException {
+        if (videoUploadId != null && video != null && !video.isEmpty()) {
+            throw new IllegalArgumentException("Send either a video or a videoUploadId, not both");
         }
-        return results;
-    }
-
-    public Map<String, String> uploadPostVideo(MultipartFile file) throws IOException {
-        // Check if file is a video
-        if (!file.getContentType().startsWith("video/")) {
-            throw new IllegalArgumentException("Only video files are allowed");
-        }
-
-        // Upload with resource_type set to video
-        return cloudinaryService.uploadVideo(file, "post_videos");
-    }
-
-    public Post createPost(String userId, String username, String title, String content,
-            PostType postType, MultipartFile[] images, MultipartFile video) throws IOException {
         Post post = new Post();
-        post.setUserId(userId);
-        post.setUsername(username);
+        post.setUserId(author.getId());
+        post.setUsername(author.getUsername());
+        post.setAuthor(AuthorSnapshotService.snapshotOf(author));
         post.setTitle(title);
         post.setContent(content);
         post.setPostType(postType);
@@ -244,123 +403,152 @@ public class PostService {
         post.setLikes(new ArrayList<>());
         post.setComments(new ArrayList<>());
 
-        // Handle image uploads
+        // Images and video upload concurrently; nothing is left behind if any of them fails
+        MediaUploadService.UploadedMedia media = mediaUploadService.uploadAll(images, video);
         if (images != null && images.length > 0) {
-            List<Map<String, String>> imageResults = uploadPostImages(images);
-
-            List<String> mediaUrls = new ArrayList<>();
-            List<String> mediaPublicIds = new ArrayList<>();
-
-            for (Map<String, String> result : imageResults) {
-                mediaUrls.add(result.get("url"));
-                mediaPublicIds.add(result.get("public_id"));
-            }
-
-            post.setMediaUrls(mediaUrls);
-            post.setMediaPublicIds(mediaPublicIds);
+            post.setMediaUrls(media.mediaUrls());
+            post.setMediaPublicIds(media.mediaPublicIds());
+        }
+        if (media.video() != null) {
+            setVideo(post, media.video());
         }
 
-        // Handle video upload
-        if (video != null && !video.isEmpty()) {
-            Map<String, String> videoResult = uploadPostVideo(video);
-            post.setVideoUrl(videoResult.get("url"));
-            post.setVideoPublicId(videoResult.get("public_id"));
-            post.setVideoDuration(Integer.parseInt(videoResult.getOrDefault("duration", "0")));
-
-            // Check if video exceeds 30 seconds
-            if (post.getVideoDuration() > 30) {
-                // Delete the uploaded video since it exceeds the limit
-                cloudinaryService.deleteFile(post.getVideoPublicId());
-                throw new IllegalArgumentException("Video duration exceeds the 30-second limit");
+        // Claimed only once the images are stored, so a failed image upload doesn't use up the video
+        List<String> stored = uploadedIds(media);
+        Post saved;
+        try {
+            if (videoUploadId != null) {
+                Map<String, String> uploadedVideo = resumableUploadService.claim(videoUploadId, author.getId());
+                stored.add(uploadedVideo.get("public_id"));
+                setVideo(post, uploadedVideo);
             }
+            saved = postRepository.save(post);
+        } catch (RuntimeException e) {
+            mediaUploadService.discard(stored);
+            throw e;
         }
+        trendingIndex.track(saved);
 
-        return postRepository.save(post);
+        try {
+            feedService.fanOutInBackground(saved);
+        } catch (RejectedExecutionException e) {
+            // Only while shutting down; the post is already saved, it's just missing from home feeds
+            System.err.println("Error pushing post " + saved.getId() + " to follower timelines: " + e.getMessage());
+        }
+        return saved;
     }
 
     public void deletePostMedia(Post post) {
         // Delete images
         if (post.getMediaPublicIds() != null && !post.getMediaPublicIds().isEmpty()) {
             for (String publicId : post.getMediaPublicIds()) {
-                cloudinaryService.deleteFile(publicId);
+                mediaStorage.deleteFile(publicId);
             }
         }
 
         // Delete video
         if (post.getVideoPublicId() != null && !post.getVideoPublicId().isEmpty()) {
-            cloudinaryService.deleteFile(post.getVideoPublicId());
+            mediaStorage.deleteFile(post.getVideoPublicId());
+        }
+    }
+
+    private static void setVideo(Post post, Map<String, String> video) {
+        post.setVideoUrl(video.get("url"));
+        post.setVideoPublicId(video.get("public_id"));
+        post.setVideoDuration(Integer.parseInt(video.getOrDefault("duration", "0")));
+    }
+
+    private static List<String> uploadedIds(MediaUploadService.UploadedMedia media) {
+        if (media == null) {
+            return List.of();
+        }
+        List<String> ids = new ArrayList<>(media.mediaPublicIds());
+        if (media.video() != null) {
+            ids.add(media.video().get("public_id"));
         }
+        return ids;
     }
 
+    // Writes only the edited fields, so likes, saves and comments that land while new media uploads
+    // aren't overwritten with values read before them
     public Optional<Post> updatePost(String id, Post updatedPost, MultipartFile[] newImages, MultipartFile newVideo) {
         try {
-            return postRepository.findById(id).map(existingPost -> {
-                // Update basic fields if they're provided in updatedPost
-                if (updatedPost.getTitle() != null) {
-                    existingPost.setTitle(updatedPost.getTitle());
-                }
-                if (updatedPost.getContent() != null) {
-                    existingPost.setContent(updatedPost.getContent());
+            if (!postRepository.existsById(id)) {
+                return Optional.empty();
+            }
+
+            Update update = new Update();
+            if (updatedPost.getTitle() != null) {
+                update.set("title", updatedPost.getTitle());
+            }
+            if (updatedPost.getContent() != null) {
+                update.set("content", updatedPost.getContent());
+            }
+            if (updatedPost.getPostType() != null) {
+                update.set("postType", updatedPost.getPostType());
+            }
+
+            // New media is uploaded before the old is deleted, so a failed upload leaves the post as it was
+            boolean replaceImages = newImages != null && newImages.length > 0;
+            MediaUploadService.UploadedMedia media = null;
+            try {
+                media = mediaUploadService.uploadAll(newImages, newVideo);
+                if (replaceImages) {
+                    update.set("mediaUrls", media.mediaUrls());
+                    update.set("mediaPublicIds", media.mediaPublicIds());
                 }
-                if (updatedPost.getPostType() != null) {
-                    existingPost.setPostType(updatedPost.getPostType());
+                if (media.video() != null) {
+                    update.set("videoUrl", media.video().get("url"));
+                    update.set("videoPublicId", media.video().get("public_id"));
+                    update.set("videoDuration", Integer.parseInt(media.video().getOrDefault("duration", "0")));
                 }
+            } catch (IOException e) {
+                System.err.println("Failed to upload new media: " + e.getMessage());
+            }
+            if (update.getUpdateObject().isEmpty()) {
+                return postRepository.findById(id);
+            }
 
-                // Handle new image uploads if provided
-                if (newImages != null && newImages.length > 0) {
-                    try {
-                        // Delete old images first
-                        if (existingPost.getMediaPublicIds() != null) {
-                            for (String publicId : existingPost.getMediaPublicIds()) {
-                                cloudinaryService.deleteFile(publicId);
-                            }
-                        }
-
-                        // Upload new images
-                        List<Map<String, String>> imageResults = uploadPostImages(newImages);
-
-                        List<String> mediaUrls = new ArrayList<>();
-                        List<String> mediaPublicIds = new ArrayList<>();
-
-                        for (Map<String, String> result : imageResults) {
-                            mediaUrls.add(result.get("url"));
-                            mediaPublicIds.add(result.get("public_id"));
-                        }
-
-                        existingPost.setMediaUrls(mediaUrls);
-                        existingPost.setMediaPublicIds(mediaPublicIds);
-                    } catch (IOException e) {
-                        System.err.println("Failed to upload new images: " + e.getMessage());
-                    }
-                }
+            // Returns the document as it was when the update applied, which says what media was replaced
+            Post post;
+            try {
+                post = mongoTemplate.findAndModify(new Query(Criteria.where("id").is(id)), update, Post.class);
+            } catch (RuntimeException e) {
+                mediaUploadService.discard(uploadedIds(media));
+                throw e;
+            }
+            if (post == null) {
+                // Deleted while the media was uploading
+                mediaUploadService.discard(uploadedIds(media));
+                return Optional.empty();
+            }
+            postCache.invalidate(id);
 
-                // Handle new video upload if provided
-                if (newVideo != null && !newVideo.isEmpty()) {
-                    try {
-                        // Delete old video first
-                        if (existingPost.getVideoPublicId() != null) {
-                            cloudinaryService.deleteFile(existingPost.getVideoPublicId());
-                        }
-
-                        // Upload new video
-                        Map<String, String> videoResult = uploadPostVideo(newVideo);
-                        existingPost.setVideoUrl(videoResult.get("url"));
-                        existingPost.setVideoPublicId(videoResult.get("public_id"));
-                        existingPost.setVideoDuration(Integer.parseInt(videoResult.getOrDefault("duration", "0")));
-
-                        // Check if video exceeds 30 seconds
-                        if (existingPost.getVideoDuration() > 30) {
-                            // Delete the uploaded video since it exceeds the limit
-                            cloudinaryService.deleteFile(existingPost.getVideoPublicId());
-                            throw new IllegalArgumentException("Video duration exceeds the 30-second limit");
-                        }
-                    } catch (IOException e) {
-                        System.err.println("Failed to upload new video: " + e.getMessage());
-                    }
+            List<String> replaced = new ArrayList<>();
+            if (replaceImages && media != null) {
+                if (post.getMediaPublicIds() != null) {
+                    replaced.addAll(post.getMediaPublicIds());
                 }
-
-                return postRepository.save(existingPost);
-            });
+                post.setMediaUrls(media.mediaUrls());
+                post.setMediaPublicIds(media.mediaPublicIds());
+            }
+            if (media != null && media.video() != null) {
+                if (post.getVideoPublicId() != null) {
+                    replaced.add(post.getVideoPublicId());
+                }
+                setVideo(post, media.video());
+            }
+            if (updatedPost.getTitle() != null) {
+                post.setTitle(updatedPost.getTitle());
+            }
+            if (updatedPost.getContent() != null) {
+                post.setContent(updatedPost.getContent());
+            }
+            if (updatedPost.getPostType() != null) {
+                post.setPostType(updatedPost.getPostType());
+            }
+            mediaUploadService.discard(replaced);
+            return Optional.of(post);
         } catch (Exception e) {
             System.err.println("Error updating post: " + e.getMessage());
             return Optional.empty();
@@ -369,45 +557,116 @@ public class PostService {
 
     // Comment operations
     public Optional<Post> addComment(String postId, String userId, String content) {
-        return postRepository.findById(postId).map(post -> {
-            Comment comment = new Comment();
-            comment.setId(UUID.randomUUID().toString());
-            comment.setUserId(userId);
-            comment.setContent(content);
-            comment.setCreatedAt(new Date());
-
-            if (post.getComments() == null) {
-                post.setComments(new ArrayList<>());
-            }
-            post.getComments().add(comment);
+        Comment comment = new Comment();
+        comment.setId(UUID.randomUUID().toString());
+        comment.setPostId(postId);
+        comment.setUserId(userId);
+        comment.setContent(content);
+        comment.setCreatedAt(new Date());
+        commentRepository.save(comment);
+
+        // Keep only the newest few in the post's preview
+        Post post = mongoTemplate.findAndModify(
+                new Query(Criteria.where("id").is(postId)),
+                new Update().push("comments").slice(-COMMENT_PREVIEW_SIZE).each(comment).inc("commentCount", 1),
+                RETURN_NEW, Post.class);
+        if (post == null) {
+            commentRepository.deleteById(comment.getId());
+            return Optional.empty();
+        }
+        postCache.invalidate(postId);
 
-            return postRepository.save(post);
-        });
+        trendingIndex.track(post);
+        engagementCounterStore.record(postId, EngagementCounterStore.COMMENT_WEIGHT);
+        return Optional.of(likeBuffer.overlay(post));
     }
 
     public Optional<Post> updateComment(String postId, String commentId, String userId, String content) {
-        return postRepository.findById(postId).map(post -> {
-            if (post.getComments() != null) {
-                for (Comment comment : post.getComments()) {
-                    if (comment.getId().equals(commentId) && comment.getUserId().equals(userId)) {
-                        comment.setContent(content);
-                        comment.setUpdatedAt(new Date());
-                        break;
-                    }
-                }
-            }
-            return postRepository.save(post);
-        });
+        Date now = new Date();
+        UpdateResult result = mongoTemplate.updateFirst(
+                new Query(Criteria.where("id").is(commentId).and("postId").is(postId).and("userId").is(userId)),
+                new Update().set("content", content).set("updatedAt", now),
+                Comment.class);
+
+        if (result.getMatchedCount() > 0) {
+            // Mirror the edit into the preview if the comment is one of the latest
+            mongoTemplate.updateFirst(
+                    new Query(Criteria.where("id").is(postId).and("comments.id").is(commentId)),
+                    new Update().set("comments.$.content", content).set("comments.$.updatedAt", now),
+                    Post.class);
+            postCache.invalidate(postId);
+        }
+        return findById(postId);
     }
 
     public Optional<Post> deleteComment(String postId, String commentId, String userId) {
-        return postRepository.findById(postId).map(post -> {
-            if (post.getComments() != null) {
-                post.setComments(post.getComments().stream()
-                        .filter(comment -> !(comment.getId().equals(commentId) && comment.getUserId().equals(userId)))
-                        .toList());
+        Comment removed = mongoTemplate.findAndRemove(
+                new Query(Criteria.where("id").is(commentId).and("postId").is(postId).and("userId").is(userId)),
+                Comment.class);
+        if (removed == null) {
+            return findById(postId);
+        }
+
+        // Pulls only this comment, so a concurrent addComment's push stays in the preview
+        Post post = mongoTemplate.findAndModify(
+                new Query(Criteria.where("id").is(postId)),
+                new Update().pull("comments", Query.query(Criteria.where("id").is(commentId)))
+                        .inc("commentCount", -1),
+                RETURN_NEW, Post.class);
+        if (post != null) {
+            post = refillPreview(post, removed);
+        }
+        if (post == null) {
+            return Optional.empty();
+        }
+        postCache.invalidate(postId);
+
+        trendingIndex.track(post);
+        engagementCounterStore.record(postId, -EngagementCounterStore.COMMENT_WEIGHT);
+        return Optional.of(likeBuffer.overlay(post));
+    }
+
+    // A delete can leave the preview short of the newest comments. The gap is filled with comments
+    // older than the preview, pushed in front of it only if the preview is still the one read here;
+    // if another comment write got in between, the post is read again and the refill retried.
+    private Post refillPreview(Post post, Comment removed) {
+        for (int attempt = 0; attempt < PREVIEW_REFILL_ATTEMPTS && post != null; attempt++) {
+            List<Comment> preview = post.getComments() != null ? post.getComments() : List.of();
+            int missing = Math.min(COMMENT_PREVIEW_SIZE, post.getCommentCount()) - preview.size();
+            if (missing <= 0) {
+                return post;
             }
-            return postRepository.save(post);
-        });
+            Comment oldest = preview.isEmpty() ? removed : preview.get(0);
+            List<Comment> older = new ArrayList<>(commentRepository.findByPostIdPageBefore(post.getId(),
+                    oldest.getCreatedAt(), oldest.getId(), PageRequest.of(0, missing, NEWEST_FIRST)));
+            if (older.isEmpty()) {
+                return post;
+            }
+            Collections.reverse(older);
+
+            Criteria unchanged = Criteria.where("id").is(post.getId()).and("comments").size(preview.size());
+            if (!preview.isEmpty()) {
+                unchanged = unchanged.and("comments.id").all(preview.stream().map(Comment::getId).toList());
+            }
+            Post refilled = mongoTemplate.findAndModify(new Query(unchanged),
+                    new Update().push("comments").atPosition(0).each(older.toArray()),
+                    RETURN_NEW, Post.class);
+            if (refilled != null) {
+                return refilled;
+            }
+            post = mongoTemplate.findById(post.getId(), Post.class);
+        }
+        // Still short after repeated races; the next comment write on the post tops it up
+        return post;
+    }
+
+    public CursorPage<Comment> getCommentsPage(String postId, String cursor, int limit) {
+        CursorUtil.Cursor after = CursorUtil.decode(cursor);
+        Pageable pageable = PageRequest.of(0, limit + 1, NEWEST_FIRST);
+
+        List<Comment> comments = after == null
+                ? commentRepository.findByPostId(postId, pageable)
+                : commentRepository.findByPostIdPageBefore(postId, after.createdAt(), after.id(), pageable);
+        return CursorPage.of(comments, limit, comment -> CursorUtil.encode(comment.getCreatedAt(), comment.getId()));
     }
-}
\ No newline at end of file
+}
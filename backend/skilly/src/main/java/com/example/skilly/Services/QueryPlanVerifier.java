@@ -0,0 +1,283 @@
+package com.example.skilly.Services;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.bson.BsonDocument;
+import org.bson.BsonString;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationContext;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.SimpleMongoClientDatabaseFactory;
+import org.springframework.data.mongodb.repository.support.MongoRepositoryFactory;
+import org.springframework.data.repository.core.RepositoryInformation;
+import org.springframework.data.repository.support.Repositories;
+import org.springframework.stereotype.Service;
+
+import com.example.skilly.Config.MongoCommandCapture;
+import com.example.skilly.Models.Comment;
+import com.example.skilly.Models.Post;
+import com.example.skilly.Models.SavedPost;
+import com.mongodb.client.MongoClient;
+
+// Explains the queries the repository methods actually send and reports plans that scan the whole
+// collection (COLLSCAN) or sort in memory (SORT), along with keys and documents examined per document
+// returned. Every query method in the repository metadata is called with sample arguments against an
+// empty scratch database, the commands it sends are captured (MongoCommandCapture), and each one is
+// explained against the real database. Nothing is copied by hand, so a new or changed method is
+// checked as written, and deletes only ever run against the scratch database.
+@Service
+public class QueryPlanVerifier {
+
+    static final String SAMPLE = "sample";
+    static final Date SAMPLE_DATE = Date.from(Instant.parse("2024-01-01T00:00:00Z"));
+    static final List<String> SAMPLE_IDS = List.of("a", "b");
+    private static final int SAMPLE_PAGE_SIZE = 20;
+
+    // Pageable arguments carry the sort the services page each entity with
+    private static final Map<Class<?>, Sort> PAGE_SORTS = Map.of(
+            Post.class, Sort.by(Sort.Direction.DESC, "createdAt", "id"),
+            Comment.class, Sort.by(Sort.Direction.DESC, "createdAt", "id"),
+            SavedPost.class, Sort.by(Sort.Direction.DESC, "savedAt", "postId"));
+
+    private static final Set<String> EXPLAINABLE = Set.of(
+            "find", "aggregate", "count", "distinct", "delete", "update", "findAndModify");
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private MongoClient mongoClient;
+
+    @Autowired
+    private MongoCommandCapture commandCapture;
+
+    @Autowired
+    private ApplicationContext applicationContext;
+
+    public record PlanReport(String method, String collection, String command,
+            Set<String> stages, Set<String> indexes, long keysExamined, long docsExamined, long returned,
+            List<String> problems) {
+    }
+
+    public Map<String, Object> verify() {
+        List<PlanReport> reports = plans();
+        int withProblems = 0;
+        for (PlanReport report : reports) {
+            if (!report.problems().isEmpty()) {
+                withProblems++;
+            }
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("checked", reports.size());
+        result.put("withProblems", withProblems);
+        result.put("plans", reports);
+        return result;
+    }
+
+    // One report per command sent by each repository query method
+    public List<PlanReport> plans() {
+        Repositories repositories = new Repositories(applicationContext);
+        MongoTemplate scratch = new MongoTemplate(
+                new SimpleMongoClientDatabaseFactory(mongoClient, mongoTemplate.getDb().getName() + "-query-plans"),
+                mongoTemplate.getConverter());
+        MongoRepositoryFactory scratchRepositories = new MongoRepositoryFactory(scratch);
+
+        List<Class<?>> domainTypes = new ArrayList<>();
+        repositories.forEach(domainTypes::add);
+        domainTypes.sort(Comparator.comparing(Class::getSimpleName));
+
+        List<PlanReport> reports = new ArrayList<>();
+        for (Class<?> domainType : domainTypes) {
+            RepositoryInformation information = repositories.getRepositoryInformationFor(domainType).orElse(null);
+            if (information == null) {
+                continue;
+            }
+            Object repository = scratchRepositories.getRepository(information.getRepositoryInterface());
+            List<Method> methods = information.getQueryMethods().stream()
+                    .sorted(Comparator.comparing(Method::toGenericString))
+                    .toList();
+            for (Method method : methods) {
+                reports.addAll(explain(information.getRepositoryInterface(), repository, method, domainType));
+            }
+        }
+        return reports;
+    }
+
+    private List<PlanReport> explain(Class<?> repositoryInterface, Object repository, Method method,
+            Class<?> domainType) {
+        String name = repositoryInterface.getSimpleName() + "." + method.getName();
+        List<String> callProblems = new ArrayList<>();
+        List<BsonDocument> commands = commandCapture.capture(() -> {
+            try {
+                method.invoke(repository, sampleArguments(method, domainType));
+            } catch (InvocationTargetException e) {
+                callProblems.add("call failed: " + e.getCause().getMessage());
+            } catch (IllegalAccessException | IllegalArgumentException e) {
+                callProblems.add("call failed: " + e.getMessage());
+            }
+        });
+
+        List<PlanReport> reports = new ArrayList<>();
+        for (BsonDocument command : commands) {
+            if (EXPLAINABLE.contains(command.getFirstKey())) {
+                reports.add(explain(name, command, callProblems));
+            }
+        }
+        if (reports.isEmpty()) {
+            List<String> problems = new ArrayList<>(callProblems);
+            problems.add("no query captured");
+            reports.add(new PlanReport(name, mongoTemplate.getCollectionName(domainType), null,
+                    Set.of(), Set.of(), 0, 0, 0, problems));
+        }
+        return reports;
+    }
+
+    private PlanReport explain(String method, BsonDocument command, List<String> callProblems) {
+        String operation = command.getFirstKey();
+        String collection = command.isString(operation) ? command.getString(operation).getValue() : "";
+
+        // Session, cluster time and target database belong to the captured request, not the explain
+        BsonDocument query = new BsonDocument();
+        command.forEach((key, value) -> {
+            if (!key.startsWith("$") && !key.equals("lsid") && !key.equals("txnNumber")) {
+                query.append(key, value);
+            }
+        });
+
+        // executionStats runs the winning plan, so the counts reflect the data actually in the collection
+        Document explained = mongoTemplate.getDb().runCommand(
+                new BsonDocument("explain", query).append("verbosity", new BsonString("executionStats")));
+        Set<String> stages = new LinkedHashSet<>();
+        Set<String> indexes = new LinkedHashSet<>();
+        collectWinningPlans(explained, stages, indexes);
+
+        List<String> problems = new ArrayList<>(callProblems);
+        if (stages.contains("COLLSCAN")) {
+            problems.add("COLLSCAN");
+        }
+        if (stages.contains("SORT")) {
+            problems.add("in-memory SORT");
+        }
+
+        Document executionStats = firstDocument(explained, "executionStats");
+        long returned = count(executionStats, "nReturned");
+        // A delete returns nothing; its DELETE stage counts the documents it would remove
+        Document executionStages = executionStats != null
+                ? executionStats.get("executionStages", Document.class)
+                : null;
+        if (executionStages != null && executionStages.get("nWouldDelete") instanceof Number wouldDelete) {
+            returned = wouldDelete.longValue();
+        }
+        return new PlanReport(method, collection, query.toJson(), stages, indexes,
+                count(executionStats, "totalKeysExamined"), count(executionStats, "totalDocsExamined"),
+                returned, problems);
+    }
+
+    private static Object[] sampleArguments(Method method, Class<?> domainType) {
+        Class<?>[] types = method.getParameterTypes();
+        Object[] arguments = new Object[types.length];
+        for (int i = 0; i < types.length; i++) {
+            Class<?> type = types[i];
+            if (type == String.class) {
+                arguments[i] = SAMPLE;
+            } else if (Date.class.isAssignableFrom(type)) {
+                arguments[i] = SAMPLE_DATE;
+            } else if (Collection.class.isAssignableFrom(type)) {
+                arguments[i] = SAMPLE_IDS;
+            } else if (Pageable.class.isAssignableFrom(type)) {
+                arguments[i] = PageRequest.of(0, SAMPLE_PAGE_SIZE, PAGE_SORTS.getOrDefault(domainType, Sort.unsorted()));
+            } else if (type == Sort.class) {
+                arguments[i] = PAGE_SORTS.getOrDefault(domainType, Sort.unsorted());
+            } else if (type == boolean.class || type == Boolean.class) {
+                arguments[i] = true;
+            } else if (type == int.class || type == Integer.class) {
+                arguments[i] = SAMPLE_PAGE_SIZE;
+            } else if (type == long.class || type == Long.class) {
+                arguments[i] = (long) SAMPLE_PAGE_SIZE;
+            } else if (type.isEnum()) {
+                arguments[i] = type.getEnumConstants()[0];
+            } else {
+                throw new IllegalArgumentException("no sample value for a " + type.getSimpleName() + " parameter");
+            }
+        }
+        return arguments;
+    }
+
+    private static long count(Document executionStats, String field) {
+        return executionStats != null && executionStats.get(field) instanceof Number number ? number.longValue() : 0;
+    }
+
+    // A find or delete explains one winning plan; an aggregate has one per $cursor stage
+    private static void collectWinningPlans(Object node, Set<String> stages, Set<String> indexes) {
+        if (node instanceof Document document) {
+            for (Map.Entry<String, Object> field : document.entrySet()) {
+                if (field.getKey().equals("winningPlan")) {
+                    collectStages(field.getValue(), stages, indexes);
+                } else if (!field.getKey().equals("rejectedPlans")) {
+                    collectWinningPlans(field.getValue(), stages, indexes);
+                }
+            }
+        } else if (node instanceof List<?> children) {
+            for (Object child : children) {
+                collectWinningPlans(child, stages, indexes);
+            }
+        }
+    }
+
+    // Walks the plan tree; newer servers nest the classic plan under winningPlan.queryPlan
+    private static void collectStages(Object node, Set<String> stages, Set<String> indexes) {
+        if (node instanceof Document document) {
+            if (document.get("stage") instanceof String stage) {
+                stages.add(stage);
+            }
+            if (document.get("indexName") instanceof String indexName) {
+                indexes.add(indexName);
+            }
+            for (Object child : document.values()) {
+                collectStages(child, stages, indexes);
+            }
+        } else if (node instanceof List<?> children) {
+            for (Object child : children) {
+                collectStages(child, stages, indexes);
+            }
+        }
+    }
+
+    private static Document firstDocument(Object node, String key) {
+        if (node instanceof Document document) {
+            if (document.get(key) instanceof Document found) {
+                return found;
+            }
+            for (Object child : document.values()) {
+                Document found = firstDocument(child, key);
+                if (found != null) {
+                    return found;
+                }
+            }
+        } else if (node instanceof List<?> children) {
+            for (Object child : children) {
+                Document found = firstDocument(child, key);
+                if (found != null) {
+                    return found;
+                }
+            }
+        }
+        return null;
+    }
+}
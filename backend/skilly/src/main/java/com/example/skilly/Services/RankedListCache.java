@@ -0,0 +1,145 @@
+package com.example.skilly.Services;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PreDestroy;
+
+// Short-lived shared cache for the ranked post lists (trending, recent, popular).
+// Concurrent misses on a key share a single computation, and entries past refresh-after are
+// recomputed in the background while callers keep getting the cached list until the TTL.
+@Service
+public class RankedListCache {
+
+    @Value("${ranking.cache.ttl-ms:5000}")
+    private long ttlMillis;
+
+    @Value("${ranking.cache.refresh-after-ms:3000}")
+    private long refreshAfterMillis;
+
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, CompletableFuture<Entry>> inFlight = new ConcurrentHashMap<>();
+
+    private final ExecutorService refreshExecutor = Executors.newFixedThreadPool(2, runnable -> {
+        Thread thread = new Thread(runnable, "ranked-list-refresh");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong refreshes = new AtomicLong();
+    private final AtomicLong loadFailures = new AtomicLong();
+
+    private record Entry(List<?> value, long loadedAt) {
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> List<T> get(String key, Supplier<List<T>> loader) {
+        long now = System.currentTimeMillis();
+        Entry entry = entries.get(key);
+
+        if (entry != null && now - entry.loadedAt() < ttlMillis) {
+            hits.incrementAndGet();
+            if (now - entry.loadedAt() >= refreshAfterMillis) {
+                refreshInBackground(key, loader, entry);
+            }
+            return (List<T>) entry.value();
+        }
+
+        misses.incrementAndGet();
+        return (List<T>) load(key, loader).value();
+    }
+
+    // The in-flight slot is claimed before the task is queued, so hits on a stale entry queue one
+    // refresh between them rather than one each. A miss arriving meanwhile waits for that refresh.
+    private void refreshInBackground(String key, Supplier<? extends List<?>> loader, Entry stale) {
+        CompletableFuture<Entry> future = new CompletableFuture<>();
+        if (inFlight.putIfAbsent(key, future) != null) {
+            return;
+        }
+        try {
+            refreshExecutor.execute(() -> {
+                Entry current = entries.get(key);
+                if (current != null && current != stale) {
+                    // Already replaced since this refresh was queued
+                    future.complete(current);
+                    inFlight.remove(key, future);
+                    return;
+                }
+                try {
+                    compute(key, loader, future);
+                    refreshes.incrementAndGet();
+                } catch (RuntimeException e) {
+                    System.err.println("Error refreshing ranked list " + key + ": " + e.getMessage());
+                }
+            });
+        } catch (RuntimeException e) {
+            // Executor shut down; leave the slot for the next caller
+            inFlight.remove(key, future);
+            future.cancel(false);
+        }
+    }
+
+    // Runs the loader unless another thread already is, in which case its result is shared
+    private Entry load(String key, Supplier<? extends List<?>> loader) {
+        CompletableFuture<Entry> future = new CompletableFuture<>();
+        CompletableFuture<Entry> running = inFlight.putIfAbsent(key, future);
+        if (running != null) {
+            coalesced.incrementAndGet();
+            try {
+                return running.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException cause ? cause : e;
+            }
+        }
+        return compute(key, loader, future);
+    }
+
+    private Entry compute(String key, Supplier<? extends List<?>> loader, CompletableFuture<Entry> future) {
+        try {
+            Entry entry = new Entry(List.copyOf(loader.get()), System.currentTimeMillis());
+            entries.put(key, entry);
+            // Drop expired entries, so keys that are never asked for again (e.g. an old snapshot's) go away
+            entries.values().removeIf(other -> entry.loadedAt() - other.loadedAt() >= ttlMillis);
+            future.complete(entry);
+            return entry;
+        } catch (RuntimeException e) {
+            loadFailures.incrementAndGet();
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, future);
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("entries", entries.size());
+        stats.put("hits", hits.get());
+        stats.put("misses", misses.get());
+        stats.put("coalescedMisses", coalesced.get());
+        stats.put("backgroundRefreshes", refreshes.get());
+        stats.put("loadFailures", loadFailures.get());
+        return stats;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        refreshExecutor.shutdownNow();
+        // Refreshes that never ran still hold their slot; release anyone waiting on them
+        inFlight.values().forEach(future -> future.cancel(false));
+    }
+}
@@ -0,0 +1,239 @@
+package com.example.skilly.Services;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.example.skilly.Models.Post;
+import com.example.skilly.Models.PostType;
+
+import jakarta.annotation.PreDestroy;
+
+// Periodically ranks the last 30 days of posts into an immutable snapshot: trending (by
+// PostService.calculateTrendingScore) and popular (likes + comments), overall and per PostType.
+// Posts are read from a cursor with only their counters, scored in parallel batches that each keep
+// their own top entries, and merged. The finished snapshot replaces the previous one in a single
+// reference swap, so readers see either the old or the new ranking, never a partial one.
+@Service
+public class RankingSnapshotService {
+
+    private static final long WINDOW_MILLIS = 30L * 24 * 60 * 60 * 1000;
+    private static final int BATCH_SIZE = 1000;
+    // Largest limit the /trending and /popular endpoints accept
+    static final int RANK_DEPTH = 200;
+    private static final int THREADS = Math.max(2, Runtime.getRuntime().availableProcessors() / 2);
+
+    // Trending ties keep the post id order of TrendingIndex; popular ties favour newer posts like getPopularPosts
+    private static final Comparator<RankedPost> TRENDING_ORDER = Comparator.comparingDouble(RankedPost::score)
+            .reversed().thenComparing(RankedPost::postId);
+    private static final Comparator<RankedPost> POPULAR_ORDER = Comparator.comparingDouble(RankedPost::score)
+            .reversed().thenComparing(Comparator.comparingLong(RankedPost::createdAt).reversed())
+            .thenComparing(RankedPost::postId);
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Value("${ranking.snapshot.enabled:true}")
+    private boolean enabled;
+
+    private final ExecutorService batchExecutor = Executors.newFixedThreadPool(THREADS, runnable -> {
+        Thread thread = new Thread(runnable, "ranking-snapshot");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final AtomicReference<RankingSnapshot> current = new AtomicReference<>();
+
+    private final AtomicLong runs = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+
+    public record RankedPost(String postId, double score, long createdAt) {
+    }
+
+    public record Rankings(List<RankedPost> trending, List<RankedPost> popular) {
+    }
+
+    private static final Rankings EMPTY = new Rankings(List.of(), List.of());
+
+    public record RankingSnapshot(Date computedAt, long durationMillis, long postsExamined, Rankings all,
+            Map<PostType, Rankings> byType) {
+
+        public Rankings rankings(PostType type) {
+            return type == null ? all : byType.getOrDefault(type, EMPTY);
+        }
+    }
+
+    // Latest snapshot, or null until the first run has finished
+    public RankingSnapshot getSnapshot() {
+        return current.get();
+    }
+
+    @Scheduled(fixedDelayString = "${ranking.snapshot.interval-ms:60000}")
+    public void refresh() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            current.set(compute());
+            runs.incrementAndGet();
+        } catch (RuntimeException e) {
+            // Keep serving the previous snapshot
+            failures.incrementAndGet();
+            System.err.println("Error computing ranking snapshot: " + e.getMessage());
+        }
+    }
+
+    private RankingSnapshot compute() {
+        long started = System.currentTimeMillis();
+        Query query = new Query(Criteria.where("createdAt").gt(new Date(started - WINDOW_MILLIS)))
+                .cursorBatchSize(BATCH_SIZE);
+        query.fields().include("createdAt", "postType", "likeCount", "saveCount", "commentCount");
+
+        // At most two batches queued per thread, so a fast cursor can't pile up posts in memory
+        Semaphore slots = new Semaphore(THREADS * 2);
+        List<CompletableFuture<TopPosts>> partials = new ArrayList<>();
+        long examined = 0;
+        try (Stream<Post> posts = mongoTemplate.stream(query, Post.class)) {
+            Iterator<Post> cursor = posts.iterator();
+            while (cursor.hasNext()) {
+                List<Post> batch = new ArrayList<>(BATCH_SIZE);
+                while (cursor.hasNext() && batch.size() < BATCH_SIZE) {
+                    batch.add(cursor.next());
+                }
+                examined += batch.size();
+                slots.acquireUninterruptibly();
+                partials.add(CompletableFuture.supplyAsync(() -> rank(batch, started), batchExecutor)
+                        .whenComplete((result, error) -> slots.release()));
+            }
+        }
+
+        TopPosts merged = new TopPosts();
+        for (CompletableFuture<TopPosts> partial : partials) {
+            merged.addAll(partial.join());
+        }
+
+        long duration = System.currentTimeMillis() - started;
+        return merged.toSnapshot(new Date(started), duration, examined);
+    }
+
+    private static TopPosts rank(List<Post> batch, long now) {
+        TopPosts top = new TopPosts();
+        for (Post post : batch) {
+            if (post.getCreatedAt() == null) {
+                continue;
+            }
+            long createdAt = post.getCreatedAt().getTime();
+            double trending = PostService.calculateTrendingScore(createdAt, post.getLikeCount(),
+                    post.getSaveCount(), post.getCommentCount(), now);
+            if (trending > 0) {
+                top.offerTrending(post.getPostType(), new RankedPost(post.getId(), trending, createdAt));
+            }
+            top.offerPopular(post.getPostType(),
+                    new RankedPost(post.getId(), post.getLikeCount() + post.getCommentCount(), createdAt));
+        }
+        return top;
+    }
+
+    // Bounded top entries per ranking; each heap keeps its worst entry at the head so it can be dropped
+    private static class TopPosts {
+
+        private final PriorityQueue<RankedPost> trending = heap(TRENDING_ORDER);
+        private final PriorityQueue<RankedPost> popular = heap(POPULAR_ORDER);
+        private final Map<PostType, PriorityQueue<RankedPost>> trendingByType = new EnumMap<>(PostType.class);
+        private final Map<PostType, PriorityQueue<RankedPost>> popularByType = new EnumMap<>(PostType.class);
+
+        private static PriorityQueue<RankedPost> heap(Comparator<RankedPost> order) {
+            return new PriorityQueue<>(order.reversed());
+        }
+
+        void offerTrending(PostType type, RankedPost post) {
+            offer(trending, post, TRENDING_ORDER);
+            if (type != null) {
+                offer(trendingByType.computeIfAbsent(type, t -> heap(TRENDING_ORDER)), post, TRENDING_ORDER);
+            }
+        }
+
+        void offerPopular(PostType type, RankedPost post) {
+            offer(popular, post, POPULAR_ORDER);
+            if (type != null) {
+                offer(popularByType.computeIfAbsent(type, t -> heap(POPULAR_ORDER)), post, POPULAR_ORDER);
+            }
+        }
+
+        private static void offer(PriorityQueue<RankedPost> heap, RankedPost post, Comparator<RankedPost> order) {
+            if (heap.size() < RANK_DEPTH) {
+                heap.add(post);
+            } else if (order.compare(post, heap.peek()) < 0) {
+                heap.poll();
+                heap.add(post);
+            }
+        }
+
+        // Every post lands in exactly one batch, so merging the per-batch tops gives the overall top
+        void addAll(TopPosts other) {
+            other.trending.forEach(post -> offer(trending, post, TRENDING_ORDER));
+            other.popular.forEach(post -> offer(popular, post, POPULAR_ORDER));
+            other.trendingByType.forEach((type, heap) -> heap.forEach(post ->
+                    offer(trendingByType.computeIfAbsent(type, t -> heap(TRENDING_ORDER)), post, TRENDING_ORDER)));
+            other.popularByType.forEach((type, heap) -> heap.forEach(post ->
+                    offer(popularByType.computeIfAbsent(type, t -> heap(POPULAR_ORDER)), post, POPULAR_ORDER)));
+        }
+
+        RankingSnapshot toSnapshot(Date computedAt, long duration, long examined) {
+            Map<PostType, Rankings> byType = new EnumMap<>(PostType.class);
+            for (PostType type : PostType.values()) {
+                byType.put(type, new Rankings(sorted(trendingByType.get(type), TRENDING_ORDER),
+                        sorted(popularByType.get(type), POPULAR_ORDER)));
+            }
+            Rankings all = new Rankings(sorted(trending, TRENDING_ORDER), sorted(popular, POPULAR_ORDER));
+            return new RankingSnapshot(computedAt, duration, examined, all, Map.copyOf(byType));
+        }
+
+        private static List<RankedPost> sorted(PriorityQueue<RankedPost> heap, Comparator<RankedPost> order) {
+            if (heap == null) {
+                return List.of();
+            }
+            List<RankedPost> ranked = new ArrayList<>(heap);
+            ranked.sort(order);
+            return List.copyOf(ranked);
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        RankingSnapshot snapshot = current.get();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("runs", runs.get());
+        stats.put("failures", failures.get());
+        stats.put("computedAt", snapshot != null ? snapshot.computedAt() : null);
+        stats.put("durationMillis", snapshot != null ? snapshot.durationMillis() : null);
+        stats.put("postsExamined", snapshot != null ? snapshot.postsExamined() : null);
+        return stats;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        batchExecutor.shutdownNow();
+    }
+}
@@ -0,0 +1,287 @@
+package com.example.skilly.Services;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.example.skilly.Exceptions.ResourceNotFoundException;
+import com.example.skilly.Exceptions.UploadOffsetMismatchException;
+import com.example.skilly.Models.UploadSession;
+import com.example.skilly.Repositories.UploadSessionRepository;
+import com.example.skilly.Utils.FileMultipartFile;
+
+// Resumable video uploads: create a session, append chunks at the committed offset, ask for the
+// offset after a dropped connection, then complete to store the video. Bytes that reached disk
+// before a connection dropped are kept, so a retry only resends what was lost. The session file
+// lives on this server's disk, so a session has to be continued against the same instance.
+@Service
+public class ResumableUploadService {
+
+    private static final long TRANSFER_CHUNK = 1024 * 1024;
+
+    @Autowired
+    private UploadSessionRepository uploadSessionRepository;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private MediaUploadService mediaUploadService;
+
+    @Value("${media.upload.session-dir:${java.io.tmpdir}/skilly-uploads}")
+    private String sessionDir;
+
+    @Value("${media.upload.max-video-bytes:209715200}")
+    private long maxVideoBytes;
+
+    // Sessions, complete or not, untouched for this long are removed
+    @Value("${media.upload.session-ttl-ms:86400000}")
+    private long sessionTtlMillis;
+
+    // One writer per session at a time; a second request for the same session waits. Entries are
+    // dropped when the session is claimed or removed.
+    private final ConcurrentHashMap<String, Object> sessionLocks = new ConcurrentHashMap<>();
+
+    private final AtomicLong expiredSessions = new AtomicLong();
+    private final AtomicLong orphanFiles = new AtomicLong();
+
+    public UploadSession create(String userId, String filename, String contentType, long size) throws IOException {
+        if (contentType == null || !contentType.startsWith("video/")) {
+            throw new IllegalArgumentException("Only video files are allowed");
+        }
+        if (size <= 0 || size > maxVideoBytes) {
+            throw new IllegalArgumentException("Video size must be between 1 and " + maxVideoBytes + " bytes");
+        }
+
+        Date now = new Date();
+        UploadSession session = new UploadSession();
+        session.setId(UUID.randomUUID().toString());
+        session.setUserId(userId);
+        session.setFilename(filename);
+        session.setContentType(contentType);
+        session.setTotalSize(size);
+        session.setCommittedOffset(0);
+        session.setStatus(UploadSession.Status.UPLOADING);
+        session.setCreatedAt(now);
+        session.setUpdatedAt(now);
+
+        Files.createDirectories(root());
+        Files.createFile(partFile(session.getId()));
+        return uploadSessionRepository.save(session);
+    }
+
+    public UploadSession get(String sessionId, String userId) {
+        UploadSession session = uploadSessionRepository.findById(sessionId)
+                .orElseThrow(() -> new ResourceNotFoundException("Upload session", "id", sessionId));
+        if (!session.getUserId().equals(userId)) {
+            // Same answer as a missing session, so ids of other users' uploads aren't confirmed
+            throw new ResourceNotFoundException("Upload session", "id", sessionId);
+        }
+        return session;
+    }
+
+    // Appends the body at offset, which must be the committed offset. Returns the session with the new
+    // committed offset, which covers whatever was written even if the body ended early.
+    public UploadSession append(String sessionId, String userId, long offset, InputStream body) throws IOException {
+        // Checked before taking a lock, so unknown ids don't add lock entries
+        get(sessionId, userId);
+        synchronized (sessionLocks.computeIfAbsent(sessionId, id -> new Object())) {
+            UploadSession session = get(sessionId, userId);
+            if (session.getStatus() != UploadSession.Status.UPLOADING) {
+                throw new IllegalStateException("Upload is already complete");
+            }
+            if (offset != session.getCommittedOffset()) {
+                throw new UploadOffsetMismatchException(session.getCommittedOffset());
+            }
+
+            long position = offset;
+            IOException readFailure = null;
+            try (ReadableByteChannel in = Channels.newChannel(body);
+                    FileChannel out = FileChannel.open(partFile(sessionId), StandardOpenOption.WRITE)) {
+                // Anything past the committed offset is from an earlier failed chunk
+                out.truncate(offset);
+                long limit = session.getTotalSize();
+                try {
+                    long transferred;
+                    while (position < limit && (transferred = out.transferFrom(in, position,
+                            Math.min(TRANSFER_CHUNK, limit - position))) > 0) {
+                        position += transferred;
+                    }
+                    if (position == limit && body.read() != -1) {
+                        throw new IllegalArgumentException("Chunk runs past the declared size of "
+                                + limit + " bytes");
+                    }
+                } catch (IOException e) {
+                    // The client went away; keep the bytes that did arrive
+                    readFailure = e;
+                }
+                out.force(false);
+            }
+
+            session.setCommittedOffset(position);
+            session.setUpdatedAt(new Date());
+            UploadSession saved = uploadSessionRepository.save(session);
+            if (readFailure != null) {
+                throw readFailure;
+            }
+            return saved;
+        }
+    }
+
+    // Stores the assembled video through the same path as a multipart upload, including the
+    // duration limit, and keeps the result on the session until a post claims it
+    public UploadSession complete(String sessionId, String userId) throws IOException {
+        // Checked before taking a lock, so unknown ids don't add lock entries
+        get(sessionId, userId);
+        synchronized (sessionLocks.computeIfAbsent(sessionId, id -> new Object())) {
+            UploadSession session = get(sessionId, userId);
+            if (session.getStatus() == UploadSession.Status.COMPLETE) {
+                return session;
+            }
+            if (session.getCommittedOffset() != session.getTotalSize()) {
+                throw new IllegalStateException("Upload is incomplete: " + session.getCommittedOffset()
+                        + " of " + session.getTotalSize() + " bytes received");
+            }
+
+            Path file = partFile(sessionId);
+            MediaUploadService.UploadedMedia media = mediaUploadService.uploadAll(null,
+                    new FileMultipartFile(file, session.getFilename(), session.getContentType()));
+            Map<String, String> video = media.video();
+
+            session.setStatus(UploadSession.Status.COMPLETE);
+            session.setVideoUrl(video.get("url"));
+            session.setVideoPublicId(video.get("public_id"));
+            session.setVideoDuration(Integer.parseInt(video.getOrDefault("duration", "0")));
+            session.setUpdatedAt(new Date());
+            UploadSession saved = uploadSessionRepository.save(session);
+            Files.deleteIfExists(file);
+            return saved;
+        }
+    }
+
+    // Takes a completed upload for a new post. The session is removed in the same step, so the
+    // video can be attached to one post only.
+    public Map<String, String> claim(String sessionId, String userId) {
+        UploadSession session = mongoTemplate.findAndRemove(new Query(Criteria.where("id").is(sessionId)
+                .and("userId").is(userId).and("status").is(UploadSession.Status.COMPLETE)), UploadSession.class);
+        if (session == null) {
+            throw new IllegalArgumentException("No completed video upload with id " + sessionId);
+        }
+        sessionLocks.remove(sessionId);
+
+        Map<String, String> video = new LinkedHashMap<>();
+        video.put("url", session.getVideoUrl());
+        video.put("public_id", session.getVideoPublicId());
+        video.put("duration", String.valueOf(session.getVideoDuration()));
+        return video;
+    }
+
+    // Under the session lock, so a complete() in progress finishes (or sees the session gone)
+    // instead of saving it back after it was removed
+    public void abort(String sessionId, String userId) throws IOException {
+        // Checked before taking a lock, so unknown ids don't add lock entries
+        get(sessionId, userId);
+        synchronized (sessionLocks.computeIfAbsent(sessionId, id -> new Object())) {
+            UploadSession session = mongoTemplate.findAndRemove(new Query(Criteria.where("id").is(sessionId)
+                    .and("userId").is(userId)), UploadSession.class);
+            if (session == null) {
+                // Claimed or collected meanwhile
+                throw new ResourceNotFoundException("Upload session", "id", sessionId);
+            }
+            discardRemoved(session);
+        }
+    }
+
+    // Cleans up after a session document that this caller removed, so a session claimed or removed
+    // concurrently never has its file or video discarded twice
+    private void discardRemoved(UploadSession session) throws IOException {
+        sessionLocks.remove(session.getId());
+        Files.deleteIfExists(partFile(session.getId()));
+        if (session.getVideoPublicId() != null) {
+            mediaUploadService.discard(List.of(session.getVideoPublicId()));
+        }
+    }
+
+    // Removes sessions nobody touched within the TTL, then any session file without a session. Each
+    // session is removed only if it is still expired, and only what was removed is discarded, so a
+    // session claimed or resumed meanwhile is left alone.
+    @Scheduled(fixedDelayString = "${media.upload.session-gc-interval-ms:3600000}")
+    public void collectExpired() {
+        Date cutoff = new Date(System.currentTimeMillis() - sessionTtlMillis);
+        Query expiredQuery = new Query(Criteria.where("updatedAt").lt(cutoff));
+        expiredQuery.fields().include("id");
+        for (UploadSession candidate : mongoTemplate.find(expiredQuery, UploadSession.class)) {
+            String sessionId = candidate.getId();
+            synchronized (sessionLocks.computeIfAbsent(sessionId, id -> new Object())) {
+                try {
+                    UploadSession session = mongoTemplate.findAndRemove(new Query(Criteria.where("id").is(sessionId)
+                            .and("updatedAt").lt(cutoff)), UploadSession.class);
+                    if (session == null) {
+                        // Touched since the scan, or claimed or aborted; only a gone session drops its lock
+                        if (!uploadSessionRepository.existsById(sessionId)) {
+                            sessionLocks.remove(sessionId);
+                        }
+                        continue;
+                    }
+                    discardRemoved(session);
+                    expiredSessions.incrementAndGet();
+                } catch (IOException | RuntimeException e) {
+                    System.err.println("Error removing upload session " + sessionId + ": " + e.getMessage());
+                }
+            }
+        }
+
+        if (!Files.isDirectory(root())) {
+            return;
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(root(), "*.part")) {
+            for (Path file : files) {
+                String sessionId = file.getFileName().toString().replace(".part", "");
+                if (Files.getLastModifiedTime(file).toMillis() < cutoff.getTime()
+                        && !uploadSessionRepository.existsById(sessionId)) {
+                    Files.deleteIfExists(file);
+                    orphanFiles.incrementAndGet();
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Error cleaning up upload files: " + e.getMessage());
+        }
+    }
+
+    private Path root() {
+        return Paths.get(sessionDir).toAbsolutePath().normalize();
+    }
+
+    private Path partFile(String sessionId) {
+        return root().resolve(sessionId + ".part");
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("expiredSessions", expiredSessions.get());
+        stats.put("orphanFiles", orphanFiles.get());
+        return stats;
+    }
+}
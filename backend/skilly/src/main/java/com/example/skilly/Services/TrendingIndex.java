@@ -0,0 +1,112 @@
+package com.example.skilly.Services;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.example.skilly.Models.Post;
+import com.example.skilly.Repositories.PostRepository;
+
+// In-memory ranking of the last 30 days of posts by trending score. Entries are updated on
+// create, like, save and comment events and rescored periodically, so a top-k read only walks k entries.
+@Service
+public class TrendingIndex {
+
+    private static final long WINDOW_MILLIS = 30L * 24 * 60 * 60 * 1000;
+
+    @Autowired
+    private PostRepository postRepository;
+
+    // Latest entry per post, including posts that don't have enough engagement to rank yet
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+
+    // Ranked entries, highest score first
+    private final ConcurrentSkipListSet<Entry> ranking = new ConcurrentSkipListSet<>(
+            Comparator.comparingDouble(Entry::score).reversed().thenComparing(Entry::postId));
+
+    private record Entry(String postId, long createdAt, int likes, int saves, int comments, double score) {
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        Date cutoffDate = new Date(System.currentTimeMillis() - WINDOW_MILLIS);
+
+        entries.clear();
+        ranking.clear();
+        for (Post post : postRepository.findEngagementCountsByCreatedAtAfter(cutoffDate)) {
+            track(post);
+        }
+
+        System.out.println("Trending index rebuilt: " + entries.size() + " recent posts, " + ranking.size() + " ranked");
+    }
+
+    public void track(Post post) {
+        track(post.getId(), post.getCreatedAt(), post.getLikeCount(), post.getSaveCount(), post.getCommentCount());
+    }
+
+    public void track(String postId, Date createdAt, int likesCount, int savesCount, int commentsCount) {
+        if (postId == null || createdAt == null) {
+            return;
+        }
+        entries.compute(postId, (id, previous) -> score(id, createdAt.getTime(), likesCount, savesCount,
+                commentsCount, previous, System.currentTimeMillis()));
+    }
+
+    public void remove(String postId) {
+        entries.computeIfPresent(postId, (id, previous) -> {
+            ranking.remove(previous);
+            return null;
+        });
+    }
+
+    // Returns up to limit post ids, highest trending score first
+    public List<String> topPostIds(int limit) {
+        Set<String> ids = new LinkedHashSet<>();
+        for (Entry entry : ranking) {
+            if (ids.size() >= limit) {
+                break;
+            }
+            // A concurrent rescore can briefly expose both the old and new entry of a post
+            ids.add(entry.postId());
+        }
+        return new ArrayList<>(ids);
+    }
+
+    // Rescores every entry so the recency boost decays and posts past the window drop out
+    @Scheduled(fixedDelayString = "${trending.rescore-interval-ms:60000}")
+    public void rescore() {
+        long now = System.currentTimeMillis();
+        for (String postId : entries.keySet()) {
+            entries.computeIfPresent(postId, (id, previous) -> score(id, previous.createdAt(), previous.likes(),
+                    previous.saves(), previous.comments(), previous, now));
+        }
+    }
+
+    private Entry score(String postId, long createdAt, int likesCount, int savesCount, int commentsCount,
+            Entry previous, long now) {
+        if (previous != null) {
+            ranking.remove(previous);
+        }
+        if (now - createdAt > WINDOW_MILLIS) {
+            return null;
+        }
+
+        double score = PostService.calculateTrendingScore(createdAt, likesCount, savesCount, commentsCount, now);
+        Entry entry = new Entry(postId, createdAt, likesCount, savesCount, commentsCount, score);
+        if (score > 0) {
+            ranking.add(entry);
+        }
+        return entry;
+    }
+}
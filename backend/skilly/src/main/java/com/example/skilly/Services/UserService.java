@@ -25,6 +25,9 @@ public class UserService {
     @Autowired
     private PasswordEncoder passwordEncoder;
 
+    @Autowired
+    private AuthorSnapshotService authorSnapshotService;
+
     public List<User> getAllUsers() {
         return userRepository.findAll();
     }
@@ -125,12 +128,20 @@ public class UserService {
 
     public User updateUser(User user) {
         // Check if user exists
-        if (!userRepository.existsById(user.getId())) {
-            throw new ResourceNotFoundException("User not found with id: " + user.getId());
+        User existing = userRepository.findById(user.getId())
+                .orElseThrow(() -> new ResourceNotFoundException("User not found with id: " + user.getId()));
+
+        boolean snapshotChanged = AuthorSnapshotService.snapshotChanged(existing, user);
+        if (snapshotChanged) {
+            user.setProfileVersion(AuthorSnapshotService.nextVersion(existing));
         }
 
         // Save the updated user
-        return userRepository.save(user);
+        User saved = userRepository.save(user);
+        if (snapshotChanged) {
+            authorSnapshotService.propagateAsync(saved);
+        }
+        return saved;
     }
     public User updateUserProfilePicture(String userId, String imageUrl, String publicId) {
         // Get user by ID
@@ -142,9 +153,11 @@ public class UserService {
         // Update profile picture URL and public ID
         user.setProfilePicUrl(imageUrl);
         user.setProfilePicPublicId(publicId);
+        user.setProfileVersion(AuthorSnapshotService.nextVersion(user));
 
         // Save and return updated user
         User updatedUser = userRepository.save(user);
+        authorSnapshotService.propagateAsync(updatedUser);
 
         // Log after values for debugging
         System.out.println("After update - URL: " + updatedUser.getProfilePicUrl() + ", PublicID: " + updatedUser.getProfilePicPublicId());
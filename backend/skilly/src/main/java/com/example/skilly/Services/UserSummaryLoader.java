@@ -0,0 +1,74 @@
+package com.example.skilly.Services;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import com.example.skilly.DTOs.UserSummary;
+import com.example.skilly.Models.User;
+
+// Loads author summaries for a list of posts in one query: ids are deduplicated and only the
+// summary fields are fetched. Posts carry an author snapshot, so this is only needed for posts
+// without one. Within an HTTP request, users already loaded are reused, so several
+// lists decorated by the same request share the lookups.
+@Service
+public class UserSummaryLoader {
+
+    private static final String REQUEST_CACHE_ATTRIBUTE = UserSummaryLoader.class.getName() + ".cache";
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    // Returns a summary per id that exists; unknown ids are left out
+    public Map<String, UserSummary> load(Collection<String> userIds) {
+        Map<String, UserSummary> cache = requestCache();
+        Set<String> missing = userIds.stream()
+                .filter(Objects::nonNull)
+                .filter(id -> !cache.containsKey(id))
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+
+        if (!missing.isEmpty()) {
+            Query query = new Query(Criteria.where("id").in(missing));
+            query.fields().include("username", "profilePicUrl");
+            for (User user : mongoTemplate.find(query, User.class)) {
+                cache.put(user.getId(), new UserSummary(user.getId(), user.getUsername(), user.getProfilePicUrl()));
+            }
+        }
+
+        Map<String, UserSummary> summaries = new HashMap<>();
+        for (String id : userIds) {
+            UserSummary summary = id != null ? cache.get(id) : null;
+            if (summary != null) {
+                summaries.put(id, summary);
+            }
+        }
+        return summaries;
+    }
+
+    // Per-request cache; outside a request (scheduled jobs, background refreshes) every call starts empty
+    @SuppressWarnings("unchecked")
+    private Map<String, UserSummary> requestCache() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes == null) {
+            return new HashMap<>();
+        }
+        Object cache = attributes.getAttribute(REQUEST_CACHE_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        if (cache == null) {
+            cache = new HashMap<String, UserSummary>();
+            attributes.setAttribute(REQUEST_CACHE_ATTRIBUTE, cache, RequestAttributes.SCOPE_REQUEST);
+        }
+        return (Map<String, UserSummary>) cache;
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.skilly.Utils;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+import com.example.skilly.Models.Timeline;
+
+// K-way merge of timeline sources that are each already sorted newest first
+public final class FeedMerger {
+
+    // Newest first, with the post id as a tie breaker so cursors are stable
+    public static final Comparator<Timeline.Entry> NEWEST_FIRST = Comparator
+            .comparing(Timeline.Entry::getCreatedAt, Comparator.reverseOrder())
+            .thenComparing(Timeline.Entry::getPostId, Comparator.reverseOrder());
+
+    private FeedMerger() {
+    }
+
+    private record Head(Timeline.Entry entry, int source, int index) {
+    }
+
+    // Returns up to limit entries across all sources, dropping duplicate post ids.
+    // Costs O(limit * log k) for k sources, independent of how long each source is.
+    public static List<Timeline.Entry> merge(List<List<Timeline.Entry>> sources, int limit) {
+        PriorityQueue<Head> heads = new PriorityQueue<>(Math.max(1, sources.size()),
+                Comparator.comparing(Head::entry, NEWEST_FIRST));
+        for (int i = 0; i < sources.size(); i++) {
+            if (!sources.get(i).isEmpty()) {
+                heads.add(new Head(sources.get(i).get(0), i, 0));
+            }
+        }
+
+        List<Timeline.Entry> merged = new ArrayList<>(limit);
+        Set<String> seen = new HashSet<>();
+        while (merged.size() < limit && !heads.isEmpty()) {
+            Head head = heads.poll();
+            if (seen.add(head.entry().getPostId())) {
+                merged.add(head.entry());
+            }
+
+            List<Timeline.Entry> source = sources.get(head.source());
+            int next = head.index() + 1;
+            if (next < source.size()) {
+                heads.add(new Head(source.get(next), head.source(), next));
+            }
+        }
+        return merged;
+    }
+}
@@ -0,0 +1,305 @@
+package com.example.skilly.Utils;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.OptionalDouble;
+
+// Reads a video's duration from its container headers without decoding anything, so over-long
+// videos can be rejected before they are uploaded. Handles MP4/MOV (moov/mvhd, falling back to the
+// first track's mdhd) and WebM/Matroska (Segment/Info Duration). Box and element payloads that
+// aren't needed are skipped rather than read, so only header bytes go through memory even when an
+// MP4's moov comes after its media data. Anything unrecognised gives an empty result.
+public final class VideoDurationProbe {
+
+    // Header bytes read before giving up; skipped payloads don't count
+    private static final long MAX_HEADER_BYTES = 256 * 1024;
+    private static final int MAX_ELEMENTS = 1024;
+
+    private static final int EBML_MAGIC = 0x1A45DFA3;
+    private static final long MATROSKA_SEGMENT = 0x18538067L;
+    private static final long MATROSKA_INFO = 0x1549A966L;
+    private static final long MATROSKA_TIMECODE_SCALE = 0x2AD7B1L;
+    private static final long MATROSKA_DURATION = 0x4489L;
+    private static final long MATROSKA_CLUSTER = 0x1F43B675L;
+
+    private VideoDurationProbe() {
+    }
+
+    public static OptionalDouble probeSeconds(InputStream in) {
+        try {
+            Reader reader = new Reader(in);
+            int first = reader.readInt();
+            if (first == EBML_MAGIC) {
+                return probeMatroska(reader);
+            }
+            String type = reader.readType();
+            if (type.equals("ftyp") || type.equals("moov") || type.equals("mdat") || type.equals("free")
+                    || type.equals("wide") || type.equals("skip")) {
+                return probeMp4(reader, Integer.toUnsignedLong(first), type);
+            }
+        } catch (IOException | RuntimeException e) {
+            // Truncated or malformed headers; let the caller fall back
+        }
+        return OptionalDouble.empty();
+    }
+
+    // MP4/MOV: walk the top-level boxes to moov, then read mvhd (or mdhd when mvhd has no duration)
+    private static OptionalDouble probeMp4(Reader reader, long firstSize, String firstType) throws IOException {
+        long size = firstSize;
+        String type = firstType;
+        for (int boxes = 0; boxes < MAX_ELEMENTS; boxes++) {
+            long header = 8;
+            if (size == 1) {
+                size = reader.readLong();
+                header = 16;
+            }
+            if (type.equals("moov")) {
+                // Size 0: moov runs to the end of the file
+                long length = size == 0 ? Long.MAX_VALUE - reader.position() : size - header;
+                return durationInMoov(reader, length);
+            }
+            if (size == 0) {
+                // Last box runs to the end of the file and it isn't moov
+                return OptionalDouble.empty();
+            }
+            if (size < header) {
+                return OptionalDouble.empty();
+            }
+            reader.skip(size - header);
+
+            byte[] next = reader.readBytes(8);
+            size = Integer.toUnsignedLong(readInt(next, 0));
+            type = new String(next, 4, 4, StandardCharsets.ISO_8859_1);
+        }
+        return OptionalDouble.empty();
+    }
+
+    private static OptionalDouble durationInMoov(Reader reader, long length) throws IOException {
+        long end = reader.position() + length;
+        OptionalDouble trackDuration = OptionalDouble.empty();
+        try {
+            while (reader.position() + 8 <= end) {
+                long boxStart = reader.position();
+                long size = Integer.toUnsignedLong(reader.readInt());
+                String type = reader.readType();
+                if (size == 1) {
+                    size = reader.readLong();
+                } else if (size == 0) {
+                    size = end - boxStart;
+                }
+                long boxEnd = boxStart + size;
+                if (size < 8 || boxEnd > end) {
+                    break;
+                }
+
+                if (type.equals("mvhd")) {
+                    OptionalDouble movie = readHeaderDuration(reader);
+                    if (movie.isPresent()) {
+                        return movie;
+                    }
+                } else if ((type.equals("trak") || type.equals("mdia")) && trackDuration.isEmpty()) {
+                    // Descend: mdhd sits in trak/mdia
+                    trackDuration = durationInMoov(reader, boxEnd - reader.position());
+                } else if (type.equals("mdhd") && trackDuration.isEmpty()) {
+                    trackDuration = readHeaderDuration(reader);
+                }
+                reader.skip(boxEnd - reader.position());
+            }
+        } catch (EOFException e) {
+            // A moov of size 0 (or a truncated one) ends in EOF; keep what was found before it
+        }
+        return trackDuration;
+    }
+
+    // mvhd and mdhd share the layout up to the duration: version, flags, times, timescale, duration
+    private static OptionalDouble readHeaderDuration(Reader reader) throws IOException {
+        int version = reader.readInt() >>> 24;
+        long timescale;
+        long duration;
+        if (version == 1) {
+            reader.skip(16);
+            timescale = Integer.toUnsignedLong(reader.readInt());
+            duration = reader.readLong();
+            if (duration == -1) {
+                return OptionalDouble.empty();
+            }
+        } else {
+            reader.skip(8);
+            timescale = Integer.toUnsignedLong(reader.readInt());
+            duration = Integer.toUnsignedLong(reader.readInt());
+            if (duration == 0xFFFFFFFFL) {
+                return OptionalDouble.empty();
+            }
+        }
+        if (timescale == 0 || duration <= 0) {
+            return OptionalDouble.empty();
+        }
+        return OptionalDouble.of((double) duration / timescale);
+    }
+
+    // WebM/Matroska: skip the EBML header, enter the Segment and read Info's TimecodeScale and Duration
+    private static OptionalDouble probeMatroska(Reader reader) throws IOException {
+        long headerSize = reader.readVint();
+        if (headerSize < 0) {
+            return OptionalDouble.empty();
+        }
+        reader.skip(headerSize);
+
+        long segmentId = reader.readElementId();
+        if (segmentId != MATROSKA_SEGMENT) {
+            return OptionalDouble.empty();
+        }
+        reader.readVint();
+
+        for (int elements = 0; elements < MAX_ELEMENTS; elements++) {
+            long id = reader.readElementId();
+            long size = reader.readVint();
+            if (id == MATROSKA_CLUSTER) {
+                // Media data starts; Info always comes before it
+                return OptionalDouble.empty();
+            }
+            if (id != MATROSKA_INFO) {
+                if (size < 0) {
+                    return OptionalDouble.empty();
+                }
+                reader.skip(size);
+                continue;
+            }
+
+            long end = reader.position() + size;
+            long timecodeScale = 1_000_000;
+            double duration = -1;
+            while (reader.position() < end) {
+                long childId = reader.readElementId();
+                long childSize = reader.readVint();
+                if (childId == MATROSKA_TIMECODE_SCALE) {
+                    timecodeScale = readUnsigned(reader.readBytes((int) childSize));
+                } else if (childId == MATROSKA_DURATION && (childSize == 4 || childSize == 8)) {
+                    byte[] bytes = reader.readBytes((int) childSize);
+                    duration = childSize == 4
+                            ? Float.intBitsToFloat(readInt(bytes, 0))
+                            : Double.longBitsToDouble(readUnsigned(bytes));
+                } else {
+                    reader.skip(childSize);
+                }
+            }
+            // Duration is in TimecodeScale units, which are nanoseconds
+            return duration > 0 ? OptionalDouble.of(duration * timecodeScale / 1e9) : OptionalDouble.empty();
+        }
+        return OptionalDouble.empty();
+    }
+
+    private static int readInt(byte[] bytes, int offset) {
+        return ((bytes[offset] & 0xFF) << 24) | ((bytes[offset + 1] & 0xFF) << 16)
+                | ((bytes[offset + 2] & 0xFF) << 8) | (bytes[offset + 3] & 0xFF);
+    }
+
+    private static long readUnsigned(byte[] bytes) {
+        long value = 0;
+        for (byte b : bytes) {
+            value = (value << 8) | (b & 0xFF);
+        }
+        return value;
+    }
+
+    // Tracks the position and caps how many header bytes are read
+    private static final class Reader {
+
+        private final InputStream in;
+        private long position;
+        private long read;
+
+        Reader(InputStream in) {
+            this.in = in;
+        }
+
+        long position() {
+            return position;
+        }
+
+        int readByte() throws IOException {
+            if (++read > MAX_HEADER_BYTES) {
+                throw new IOException("Header too large");
+            }
+            position++;
+            int value = in.read();
+            if (value < 0) {
+                throw new EOFException();
+            }
+            return value;
+        }
+
+        byte[] readBytes(int length) throws IOException {
+            if (length < 0 || length > MAX_HEADER_BYTES) {
+                throw new IOException("Invalid length " + length);
+            }
+            byte[] bytes = new byte[length];
+            for (int i = 0; i < length; i++) {
+                bytes[i] = (byte) readByte();
+            }
+            return bytes;
+        }
+
+        int readInt() throws IOException {
+            return VideoDurationProbe.readInt(readBytes(4), 0);
+        }
+
+        long readLong() throws IOException {
+            return readUnsigned(readBytes(8));
+        }
+
+        String readType() throws IOException {
+            return new String(readBytes(4), StandardCharsets.ISO_8859_1);
+        }
+
+        void skip(long count) throws IOException {
+            if (count < 0) {
+                throw new IOException("Negative skip");
+            }
+            while (count > 0) {
+                long skipped = in.skip(count);
+                if (skipped <= 0) {
+                    if (in.read() < 0) {
+                        throw new EOFException();
+                    }
+                    skipped = 1;
+                }
+                position += skipped;
+                count -= skipped;
+            }
+        }
+
+        // EBML element ids keep their length marker bits
+        long readElementId() throws IOException {
+            int first = readByte();
+            int length = Integer.numberOfLeadingZeros(first) - 23;
+            if (length < 1 || length > 4) {
+                throw new IOException("Invalid element id");
+            }
+            long value = first;
+            for (int i = 1; i < length; i++) {
+                value = (value << 8) | readByte();
+            }
+            return value;
+        }
+
+        // EBML sizes drop the marker bit; all value bits set means unknown size, returned as -1
+        long readVint() throws IOException {
+            int first = readByte();
+            int length = Integer.numberOfLeadingZeros(first) - 23;
+            if (length < 1 || length > 8) {
+                throw new IOException("Invalid size");
+            }
+            long value = first & (0xFF >>> length);
+            boolean allOnes = value == (0xFF >>> length);
+            for (int i = 1; i < length; i++) {
+                int b = readByte();
+                allOnes &= b == 0xFF;
+                value = (value << 8) | b;
+            }
+            return allOnes ? -1 : value;
+        }
+    }
+}
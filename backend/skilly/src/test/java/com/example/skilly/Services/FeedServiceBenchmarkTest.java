@@ -0,0 +1,238 @@
+package com.example.skilly.Services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.bson.BsonDocument;
+import org.bson.Document;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.example.skilly.Config.MongoIndexConfig;
+import com.example.skilly.Models.Post;
+import com.example.skilly.Models.Timeline;
+import com.example.skilly.Models.User;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+
+import de.flapdoodle.embed.mongo.commands.ServerAddress;
+import de.flapdoodle.embed.mongo.distribution.Version;
+import de.flapdoodle.embed.mongo.transitions.Mongod;
+import de.flapdoodle.embed.mongo.transitions.RunningMongodProcess;
+import de.flapdoodle.reverse.TransitionWalker;
+
+// Runs FeedService against an embedded mongod under pure push, hybrid and pure pull thresholds, and
+// counts the commands it sends: timeline documents written per post, and round trips and per-author
+// pull queries per feed read. Times include the database, so compare them between strategies only.
+// Run with: mvn test -Dtest=FeedServiceBenchmarkTest -Dbenchmarks=true
+@DataMongoTest
+@Import({ FeedService.class, MongoIndexConfig.class })
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+class FeedServiceBenchmarkTest {
+
+    private static final int PAGE_SIZE = 20;
+    private static final int TIMELINE_MAX_LENGTH = 500;
+    private static final int REGULAR_FOLLOWED = 300;
+    private static final int CELEBRITIES_FOLLOWED = 5;
+    private static final int POSTS_PER_AUTHOR = 50;
+    private static final int REGULAR_FOLLOWERS = 200;
+    private static final int CELEBRITY_FOLLOWERS = 50_000;
+    private static final int HYBRID_THRESHOLD = 10_000;
+    private static final int WARM_UP_READS = 20;
+    private static final int READS = 200;
+    private static final String READER = "reader";
+
+    private static final Map<String, AtomicLong> COMMANDS = new ConcurrentHashMap<>();
+    private static final AtomicLong TIMELINE_WRITES = new AtomicLong();
+    private static final AtomicLong PULL_QUERIES = new AtomicLong();
+
+    private static TransitionWalker.ReachedState<RunningMongodProcess> mongod;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private MongoIndexConfig mongoIndexConfig;
+
+    @Autowired
+    private FeedService feedService;
+
+    private final List<String> regularAuthors = new ArrayList<>();
+    private final List<String> celebrities = new ArrayList<>();
+    private final List<Timeline.Entry> allPosts = new ArrayList<>();
+
+    // Counts every command the driver sends by name and collection, the statements of each update
+    // on timelines (one per timeline written) and the finds on posts by author (one per pulled author)
+    @TestConfiguration
+    static class CommandCounting {
+        @Bean
+        MongoClientSettingsBuilderCustomizer commandCounter() {
+            return settings -> settings.addCommandListener(new CommandListener() {
+                @Override
+                public void commandStarted(CommandStartedEvent event) {
+                    BsonDocument command = event.getCommand();
+                    String name = event.getCommandName();
+                    String collection = command.isString(name) ? command.getString(name).getValue() : "";
+                    COMMANDS.computeIfAbsent(name + ":" + collection, key -> new AtomicLong()).incrementAndGet();
+                    if (name.equals("update") && collection.equals("timelines") && command.isArray("updates")) {
+                        TIMELINE_WRITES.addAndGet(command.getArray("updates").size());
+                    }
+                    if (name.equals("find") && collection.equals("posts") && command.isDocument("filter")
+                            && command.getDocument("filter").containsKey("userId")) {
+                        PULL_QUERIES.incrementAndGet();
+                    }
+                }
+            });
+        }
+    }
+
+    private record Counts(long roundTrips, long pullQueries) {
+        Counts minus(Counts earlier) {
+            return new Counts(roundTrips - earlier.roundTrips, pullQueries - earlier.pullQueries);
+        }
+    }
+
+    @DynamicPropertySource
+    static void mongoProperties(DynamicPropertyRegistry registry) {
+        if (mongod == null) {
+            mongod = Mongod.instance().start(Version.Main.V7_0);
+        }
+        ServerAddress address = mongod.current().getServerAddress();
+        registry.add("spring.data.mongodb.uri",
+                () -> "mongodb://" + address.getHost() + ":" + address.getPort() + "/skilly-feed-benchmark");
+    }
+
+    @AfterAll
+    void stopMongod() {
+        if (mongod != null) {
+            mongod.close();
+            mongod = null;
+        }
+    }
+
+    @BeforeAll
+    void seed() {
+        mongoTemplate.getDb().drop();
+        mongoIndexConfig.ensureIndexes();
+        Random random = new Random(42);
+        long now = System.currentTimeMillis();
+
+        List<Document> users = new ArrayList<>();
+        List<Document> posts = new ArrayList<>();
+        List<String> following = new ArrayList<>();
+        for (int a = 0; a < REGULAR_FOLLOWED + CELEBRITIES_FOLLOWED; a++) {
+            boolean celebrity = a >= REGULAR_FOLLOWED;
+            String authorId = (celebrity ? "celebrity-" : "regular-") + a;
+            (celebrity ? celebrities : regularAuthors).add(authorId);
+            following.add(authorId);
+
+            List<String> followers = new ArrayList<>();
+            followers.add(READER);
+            for (int f = 1; f < (celebrity ? CELEBRITY_FOLLOWERS : REGULAR_FOLLOWERS); f++) {
+                followers.add("fan-" + a + "-" + f);
+            }
+            users.add(new Document("_id", authorId).append("username", authorId).append("followers", followers));
+
+            for (int p = 0; p < POSTS_PER_AUTHOR; p++) {
+                String postId = "post-" + a + "-" + p;
+                Date createdAt = new Date(now - random.nextInt(30 * 24 * 60 * 60) * 1000L);
+                posts.add(new Document("_id", postId).append("userId", authorId)
+                        .append("title", "Post " + postId).append("createdAt", createdAt));
+                allPosts.add(new Timeline.Entry(postId, authorId, createdAt));
+            }
+        }
+        users.add(new Document("_id", READER).append("username", READER).append("following", following));
+        mongoTemplate.getCollection(mongoTemplate.getCollectionName(User.class)).insertMany(users);
+        mongoTemplate.getCollection(mongoTemplate.getCollectionName(Post.class)).insertMany(posts);
+    }
+
+    @Test
+    void compareFeedStrategies() {
+        System.out.printf("%-8s %12s %16s %14s %20s %20s%n", "strategy", "read (us)", "round trips/read",
+                "pulls/read", "writes/celebrity post", "writes/regular post");
+        List<String> push = run("push", Integer.MAX_VALUE);
+        List<String> hybrid = run("hybrid", HYBRID_THRESHOLD);
+        List<String> pull = run("pull", 0);
+
+        assertEquals(push, hybrid);
+        assertEquals(push, pull);
+    }
+
+    // Returns the post ids of the first page, so the strategies can be checked against each other
+    private List<String> run(String strategy, int threshold) {
+        ReflectionTestUtils.setField(feedService, "celebrityFollowerThreshold", threshold);
+        ReflectionTestUtils.setField(feedService, "timelineMaxLength", TIMELINE_MAX_LENGTH);
+        mongoTemplate.dropCollection(Timeline.class);
+        mongoTemplate.save(new Timeline(READER, pushedEntries(threshold)));
+
+        List<String> firstPage = feedService.getFeed(READER, null, PAGE_SIZE).getItems().stream()
+                .map(Post::getId).toList();
+        for (int i = 0; i < WARM_UP_READS; i++) {
+            feedService.getFeed(READER, null, PAGE_SIZE);
+        }
+        Counts before = counts();
+        long start = System.nanoTime();
+        for (int i = 0; i < READS; i++) {
+            feedService.getFeed(READER, null, PAGE_SIZE);
+        }
+        double readMicros = (System.nanoTime() - start) / 1000.0 / READS;
+        Counts reads = counts().minus(before);
+
+        long celebrityWrites = fanOutWrites(celebrities.get(0));
+        long regularWrites = fanOutWrites(regularAuthors.get(0));
+
+        System.out.printf("%-8s %12.1f %16.1f %14.1f %20d %20d%n", strategy, readMicros,
+                (double) reads.roundTrips() / READS, (double) reads.pullQueries() / READS,
+                celebrityWrites, regularWrites);
+        return firstPage;
+    }
+
+    // What fan-out would have left on the reader's timeline: posts of authors at or under the threshold
+    private List<Timeline.Entry> pushedEntries(int threshold) {
+        List<Timeline.Entry> entries = new ArrayList<>();
+        for (Timeline.Entry entry : allPosts) {
+            boolean celebrity = entry.getAuthorId().startsWith("celebrity-");
+            if ((celebrity ? CELEBRITY_FOLLOWERS : REGULAR_FOLLOWERS) <= threshold) {
+                entries.add(entry);
+            }
+        }
+        entries.sort((a, b) -> b.getCreatedAt().compareTo(a.getCreatedAt()));
+        return new ArrayList<>(entries.subList(0, Math.min(TIMELINE_MAX_LENGTH, entries.size())));
+    }
+
+    private long fanOutWrites(String authorId) {
+        Post post = new Post();
+        post.setId("new-" + authorId + "-" + System.nanoTime());
+        post.setUserId(authorId);
+        post.setCreatedAt(new Date());
+
+        long before = TIMELINE_WRITES.get();
+        feedService.fanOut(post);
+        return TIMELINE_WRITES.get() - before;
+    }
+
+    private static Counts counts() {
+        return new Counts(COMMANDS.values().stream().mapToLong(AtomicLong::get).sum(), PULL_QUERIES.get());
+    }
+}
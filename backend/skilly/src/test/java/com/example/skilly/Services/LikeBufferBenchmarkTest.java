@@ -0,0 +1,207 @@
+package com.example.skilly.Services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.bson.BsonDocument;
+import org.bson.Document;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.example.skilly.Models.Post;
+import com.example.skilly.Repositories.PostRepository;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+
+import de.flapdoodle.embed.mongo.commands.ServerAddress;
+import de.flapdoodle.embed.mongo.distribution.Version;
+import de.flapdoodle.embed.mongo.transitions.Mongod;
+import de.flapdoodle.embed.mongo.transitions.RunningMongodProcess;
+import de.flapdoodle.reverse.TransitionWalker;
+
+// Replays the same like/unlike storm on a few hot posts through PostService against an embedded
+// mongod, with the buffer off and on. Times are wall clock including the database, and the counts
+// are the commands the driver actually sent for the posts collection: round trips, and write
+// statements (one per findAndModify, one per statement of a bulk update).
+// Run with: mvn test -Dtest=LikeBufferBenchmarkTest -Dbenchmarks=true
+@DataMongoTest
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+class LikeBufferBenchmarkTest {
+
+    private static final int HOT_POSTS = 5;
+    private static final int USERS = 2_000;
+    private static final int EVENTS = 20_000;
+    private static final int EVENTS_PER_FLUSH = 1_000;
+
+    private static final AtomicLong ROUND_TRIPS = new AtomicLong();
+    private static final AtomicLong WRITES = new AtomicLong();
+
+    private static TransitionWalker.ReachedState<RunningMongodProcess> mongod;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private PostRepository postRepository;
+
+    // Counts the commands sent for posts, and the write statements among them
+    @TestConfiguration
+    static class CommandCounting {
+        @Bean
+        MongoClientSettingsBuilderCustomizer commandCounter() {
+            return settings -> settings.addCommandListener(new CommandListener() {
+                @Override
+                public void commandStarted(CommandStartedEvent event) {
+                    BsonDocument command = event.getCommand();
+                    String name = event.getCommandName();
+                    if (!command.isString(name) || !command.getString(name).getValue().equals("posts")) {
+                        return;
+                    }
+                    ROUND_TRIPS.incrementAndGet();
+                    if (name.equals("findAndModify")) {
+                        WRITES.incrementAndGet();
+                    } else if (name.equals("update") && command.isArray("updates")) {
+                        WRITES.addAndGet(command.getArray("updates").size());
+                    }
+                }
+            });
+        }
+    }
+
+    private record Storm(long writes, long roundTrips, long expectedBufferedWrites, long elapsedNanos,
+            Map<String, Integer> likeCounts) {
+    }
+
+    @DynamicPropertySource
+    static void mongoProperties(DynamicPropertyRegistry registry) {
+        if (mongod == null) {
+            mongod = Mongod.instance().start(Version.Main.V7_0);
+        }
+        ServerAddress address = mongod.current().getServerAddress();
+        registry.add("spring.data.mongodb.uri",
+                () -> "mongodb://" + address.getHost() + ":" + address.getPort() + "/skilly-like-benchmark");
+    }
+
+    @AfterAll
+    void stopMongod() {
+        if (mongod != null) {
+            mongod.close();
+            mongod = null;
+        }
+    }
+
+    @BeforeAll
+    void seed() {
+        mongoTemplate.getDb().drop();
+        List<Document> posts = new ArrayList<>();
+        for (int p = 0; p < HOT_POSTS; p++) {
+            posts.add(new Document("_id", "post-" + p).append("userId", "author").append("title", "Post " + p)
+                    .append("createdAt", new Date()).append("likes", List.of()).append("likeCount", 0));
+        }
+        mongoTemplate.getCollection(mongoTemplate.getCollectionName(Post.class)).insertMany(posts);
+    }
+
+    @Test
+    void compareLikeStorms() {
+        Storm direct = replay(false);
+        Storm buffered = replay(true);
+
+        // Direct: one conditional findAndModify per event. Buffered: one update per (post, user) per flush.
+        assertEquals(EVENTS, direct.writes());
+        assertEquals(buffered.expectedBufferedWrites(), buffered.writes());
+        // Both paths leave the same likes behind
+        assertEquals(direct.likeCounts(), buffered.likeCounts());
+
+        System.out.printf("%-10s %12s %12s %14s %12s %14s%n", "path", "elapsed (ms)", "writes", "round trips",
+                "writes/s", "us/event");
+        print("direct", direct);
+        print("buffered", buffered);
+    }
+
+    private static void print(String path, Storm storm) {
+        double seconds = storm.elapsedNanos() / 1e9;
+        System.out.printf("%-10s %12.0f %12d %14d %12.0f %14.2f%n", path, seconds * 1000, storm.writes(),
+                storm.roundTrips(), storm.writes() / seconds, storm.elapsedNanos() / 1000.0 / EVENTS);
+    }
+
+    private Storm replay(boolean buffered) {
+        mongoTemplate.updateMulti(new Query(), new Update().set("likes", List.of()).set("likeCount", 0), Post.class);
+
+        PostCache postCache = new PostCache();
+        ReflectionTestUtils.setField(postCache, "postRepository", postRepository);
+        ReflectionTestUtils.setField(postCache, "maxEntries", 10_000);
+        ReflectionTestUtils.setField(postCache, "maxWeight", 64L * 1024 * 1024);
+
+        TrendingIndex trendingIndex = new TrendingIndex();
+        EngagementCounterStore engagementCounterStore = new EngagementCounterStore();
+
+        LikeBuffer buffer = new LikeBuffer();
+        ReflectionTestUtils.setField(buffer, "mongoTemplate", mongoTemplate);
+        ReflectionTestUtils.setField(buffer, "postCache", postCache);
+        ReflectionTestUtils.setField(buffer, "trendingIndex", trendingIndex);
+        ReflectionTestUtils.setField(buffer, "engagementCounterStore", engagementCounterStore);
+        ReflectionTestUtils.setField(buffer, "enabled", buffered);
+
+        PostService postService = new PostService();
+        ReflectionTestUtils.setField(postService, "mongoTemplate", mongoTemplate);
+        ReflectionTestUtils.setField(postService, "likeBuffer", buffer);
+        ReflectionTestUtils.setField(postService, "postCache", postCache);
+        ReflectionTestUtils.setField(postService, "trendingIndex", trendingIndex);
+        ReflectionTestUtils.setField(postService, "engagementCounterStore", engagementCounterStore);
+
+        Random random = new Random(42);
+        long expectedBufferedWrites = 0;
+        long writesBefore = WRITES.get();
+        long roundTripsBefore = ROUND_TRIPS.get();
+
+        long start = System.nanoTime();
+        for (int flushed = 0; flushed < EVENTS; flushed += EVENTS_PER_FLUSH) {
+            Set<String> pairs = new HashSet<>();
+            for (int e = 0; e < EVENTS_PER_FLUSH; e++) {
+                String postId = "post-" + random.nextInt(HOT_POSTS);
+                String userId = "user-" + random.nextInt(USERS);
+                if (random.nextBoolean()) {
+                    postService.likePost(postId, userId);
+                } else {
+                    postService.unlikePost(postId, userId);
+                }
+                pairs.add(postId + "/" + userId);
+            }
+            buffer.flush();
+            expectedBufferedWrites += pairs.size();
+        }
+        long elapsed = System.nanoTime() - start;
+
+        Map<String, Integer> likeCounts = new TreeMap<>();
+        for (Post post : mongoTemplate.findAll(Post.class)) {
+            assertEquals(post.getLikes().size(), post.getLikeCount(), "likeCount out of step on " + post.getId());
+            likeCounts.put(post.getId(), post.getLikeCount());
+        }
+        return new Storm(WRITES.get() - writesBefore, ROUND_TRIPS.get() - roundTripsBefore, expectedBufferedWrites,
+                elapsed, likeCounts);
+    }
+}
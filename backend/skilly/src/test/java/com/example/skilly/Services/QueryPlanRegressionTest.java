@@ -0,0 +1,244 @@
+package com.example.skilly.Services;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.reflect.Method;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.bson.Document;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.AnnotatedBeanDefinition;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
+import org.springframework.context.annotation.ClassPathScanningCandidateComponentProvider;
+import org.springframework.context.annotation.Import;
+import org.springframework.core.type.filter.AssignableTypeFilter;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.repository.Repository;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import com.example.skilly.Config.MongoCommandCapture;
+import com.example.skilly.Config.MongoIndexConfig;
+import com.example.skilly.Models.Comment;
+import com.example.skilly.Models.LearningPlan;
+import com.example.skilly.Models.Notification;
+import com.example.skilly.Models.Post;
+import com.example.skilly.Models.SavedPost;
+import com.example.skilly.Models.User;
+
+import de.flapdoodle.embed.mongo.commands.ServerAddress;
+import de.flapdoodle.embed.mongo.distribution.Version;
+import de.flapdoodle.embed.mongo.transitions.Mongod;
+import de.flapdoodle.embed.mongo.transitions.RunningMongodProcess;
+import de.flapdoodle.reverse.TransitionWalker;
+
+// Seeds an embedded mongod, creates the declared indexes, calls every repository query method and
+// explains the commands it sent, so a new method or a dropped index that falls back to a collection
+// scan or an in-memory sort fails the build. Needs network access the first time, to download mongod.
+// Run with: mvn test -Dtest=QueryPlanRegressionTest -Dembedded-mongo=true
+@DataMongoTest
+@Import({ QueryPlanVerifier.class, MongoIndexConfig.class, MongoCommandCapture.class })
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@EnabledIfSystemProperty(named = "embedded-mongo", matches = "true")
+class QueryPlanRegressionTest {
+
+    private static final int SEED_SIZE = 2000;
+    private static final long HOUR_MILLIS = 60L * 60 * 1000;
+    // Seeded timestamps run hourly from here, so the sample cursor date (2024-01-01) splits them
+    private static final long SEED_START = Instant.parse("2023-11-01T00:00:00Z").toEpochMilli();
+
+    // Unanchored case-insensitive regex searches; no ordinary index can serve them
+    private static final Set<String> ACCEPTED_SCANS = Set.of(
+            "PostRepository.findByTitleContainingIgnoreCase",
+            "UserRepository.findByUsernameContainingIgnoreCase");
+
+    // Use an index for the equality part, then filter the fetched documents by a regex
+    private static final Set<String> RESIDUAL_FILTERS = Set.of(
+            "UserRepository.findFollowersByUserIdAndSearchQuery",
+            "UserRepository.findFollowingByUserIdsAndSearchQuery");
+
+    // Documents a plan may fetch beyond what it returns before it counts as a regression
+    private static final int MAX_EXTRA_DOCS = 5;
+
+    private static TransitionWalker.ReachedState<RunningMongodProcess> mongod;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private MongoIndexConfig mongoIndexConfig;
+
+    @Autowired
+    private QueryPlanVerifier queryPlanVerifier;
+
+    private List<QueryPlanVerifier.PlanReport> plans;
+
+    @DynamicPropertySource
+    static void mongoProperties(DynamicPropertyRegistry registry) {
+        if (mongod == null) {
+            mongod = Mongod.instance().start(Version.Main.V7_0);
+        }
+        ServerAddress address = mongod.current().getServerAddress();
+        registry.add("spring.data.mongodb.uri",
+                () -> "mongodb://" + address.getHost() + ":" + address.getPort() + "/skilly-query-plans");
+    }
+
+    @AfterAll
+    void stopMongod() {
+        if (mongod != null) {
+            mongod.close();
+            mongod = null;
+        }
+    }
+
+    @BeforeAll
+    void seed() {
+        mongoTemplate.getDb().drop();
+        mongoIndexConfig.ensureIndexes();
+
+        List<Document> posts = new ArrayList<>();
+        List<Document> comments = new ArrayList<>();
+        List<Document> savedPosts = new ArrayList<>();
+        List<Document> users = new ArrayList<>();
+        List<Document> notifications = new ArrayList<>();
+        List<Document> learningPlans = new ArrayList<>();
+
+        for (int i = 0; i < SEED_SIZE; i++) {
+            boolean sample = i % 100 == 0;
+            String userId = sample ? "sample" : "user-" + (i % 200);
+            Date createdAt = new Date(SEED_START + i * HOUR_MILLIS);
+
+            posts.add(new Document("_id", "post-" + i)
+                    .append("userId", userId)
+                    .append("title", sample ? "A sample post " + i : "Post " + i)
+                    .append("createdAt", createdAt)
+                    .append("likeCount", i % 7)
+                    .append("saveCount", i % 3)
+                    .append("commentCount", i % 5));
+            comments.add(new Document("_id", "comment-" + i)
+                    .append("postId", sample ? "sample" : "post-" + (i % 500))
+                    .append("userId", "user-" + (i % 200))
+                    .append("content", "Comment " + i)
+                    .append("createdAt", createdAt));
+            savedPosts.add(new Document("_id", "saved-" + i)
+                    .append("userId", userId)
+                    .append("postId", sample ? "post-" + i : "post-" + i % 997)
+                    .append("savedAt", createdAt));
+            users.add(new Document("_id", "user-" + i)
+                    .append("username", sample ? "sample-" + i : "user" + i)
+                    .append("email", "user-" + i + "@example.com")
+                    .append("following", sample ? List.of("sample", "user-1") : List.of("user-" + (i % 50))));
+            notifications.add(new Document("_id", "notification-" + i)
+                    .append("userId", userId)
+                    .append("senderId", sample ? "sample" : "user-" + (i % 300))
+                    .append("postId", sample ? "sample" : "post-" + i)
+                    .append("type", sample ? "sample" : i % 2 == 0 ? "LIKE" : "COMMENT")
+                    .append("isRead", i % 3 == 0)
+                    .append("createdAt", createdAt));
+            learningPlans.add(new Document("_id", "plan-" + i)
+                    .append("userId", userId)
+                    .append("title", "Plan " + i)
+                    .append("isPublic", i % 50 == 0)
+                    .append("sharedWith", sample ? List.of("sample") : List.of("user-" + (i % 400))));
+        }
+
+        // The sample values the verifier passes that the loop above doesn't cover
+        savedPosts.add(new Document("_id", "saved-a").append("userId", "sample").append("postId", "a")
+                .append("savedAt", new Date(SEED_START)));
+        savedPosts.add(new Document("_id", "saved-sample").append("userId", "sample").append("postId", "sample")
+                .append("savedAt", new Date(SEED_START)));
+        users.add(new Document("_id", "a").append("username", "sample-a").append("email", "sample"));
+        users.add(new Document("_id", "b").append("username", "b").append("email", "b@example.com"));
+
+        insert(Post.class, posts);
+        insert(Comment.class, comments);
+        insert(SavedPost.class, savedPosts);
+        insert(User.class, users);
+        insert(Notification.class, notifications);
+        insert(LearningPlan.class, learningPlans);
+
+        plans = queryPlanVerifier.plans();
+    }
+
+    private void insert(Class<?> entity, List<Document> documents) {
+        mongoTemplate.getCollection(mongoTemplate.getCollectionName(entity)).insertMany(documents);
+    }
+
+    @Test
+    void everyRepositoryQueryUsesAnIndex() {
+        List<String> failures = new ArrayList<>();
+        for (QueryPlanVerifier.PlanReport report : plans) {
+            String method = report.method();
+            if (ACCEPTED_SCANS.contains(method)) {
+                continue;
+            }
+
+            if (!report.problems().isEmpty()) {
+                failures.add(method + " " + report.problems() + " stages " + report.stages() + " " + report.command());
+            }
+            long maxDocs = RESIDUAL_FILTERS.contains(method)
+                    ? SEED_SIZE / 10
+                    : report.returned() + MAX_EXTRA_DOCS;
+            if (report.docsExamined() > maxDocs) {
+                failures.add(method + " examined " + report.docsExamined() + " documents to return "
+                        + report.returned() + " " + report.command());
+            }
+        }
+        assertTrue(failures.isEmpty(), "Query plan regressions:\n" + String.join("\n", failures));
+    }
+
+    @Test
+    void sampleValuesMatchSeededData() {
+        // Guards against plans that only pass because the query matches nothing
+        for (QueryPlanVerifier.PlanReport report : plans) {
+            if (!report.method().endsWith("PageBefore")) {
+                assertTrue(report.returned() > 0, report.method() + " matched nothing in the seeded data: "
+                        + report.command());
+            }
+        }
+    }
+
+    @Test
+    void everyRepositoryMethodIsExplained() throws ClassNotFoundException {
+        ClassPathScanningCandidateComponentProvider scanner = new ClassPathScanningCandidateComponentProvider(false) {
+            @Override
+            protected boolean isCandidateComponent(AnnotatedBeanDefinition definition) {
+                return definition.getMetadata().isInterface();
+            }
+        };
+        scanner.addIncludeFilter(new AssignableTypeFilter(Repository.class));
+
+        Set<String> explained = new TreeSet<>();
+        for (QueryPlanVerifier.PlanReport report : plans) {
+            if (report.command() != null) {
+                explained.add(report.method());
+            }
+        }
+
+        Set<String> missing = new TreeSet<>();
+        Set<BeanDefinition> repositories = scanner.findCandidateComponents("com.example.skilly.Repositories");
+        assertFalse(repositories.isEmpty());
+        for (BeanDefinition definition : repositories) {
+            Class<?> repository = Class.forName(definition.getBeanClassName());
+            for (Method method : repository.getDeclaredMethods()) {
+                String name = repository.getSimpleName() + "." + method.getName();
+                if (!explained.contains(name)) {
+                    missing.add(name);
+                }
+            }
+        }
+        assertTrue(missing.isEmpty(), "Repository methods whose query wasn't captured and explained: " + missing);
+    }
+}
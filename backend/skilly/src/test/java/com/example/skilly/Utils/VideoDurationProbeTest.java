@@ -0,0 +1,194 @@
+package com.example.skilly.Utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.OptionalDouble;
+
+import org.junit.jupiter.api.Test;
+
+// Hand-built MP4 and WebM headers; media payloads are zero bytes the probe has to skip over
+class VideoDurationProbeTest {
+
+    private static final double DELTA = 1e-6;
+
+    @Test
+    void readsVersion0MovieHeader() {
+        byte[] file = concat(ftyp(), box("moov", mvhd0(1000, 45_500)), box("mdat", new byte[4096]));
+        assertSeconds(45.5, file);
+    }
+
+    @Test
+    void readsVersion1MovieHeader() {
+        byte[] file = concat(ftyp(), box("moov", mvhd1(90_000, 90_000L * 12)));
+        assertSeconds(12.0, file);
+    }
+
+    @Test
+    void fallsBackToMediaHeaderWhenMovieHeaderHasNoDuration() {
+        byte[] trak = box("trak", box("tkhd", new byte[84]), box("mdia", mdhd0(600, 6000)));
+        byte[] file = concat(ftyp(), box("moov", mvhd0(1000, 0xFFFFFFFFL), trak));
+        assertSeconds(10.0, file);
+    }
+
+    @Test
+    void findsMoovAfterLargeMediaData() {
+        byte[] file = concat(ftyp(), box("mdat", new byte[2 * 1024 * 1024]), box("moov", mvhd0(1000, 31_000)));
+        assertSeconds(31.0, file);
+    }
+
+    @Test
+    void skipsBoxesWith64BitSizes() {
+        byte[] payload = new byte[1000];
+        ByteBuffer mdat = ByteBuffer.allocate(16 + payload.length);
+        mdat.putInt(1).put(ascii("mdat")).putLong(16 + payload.length).put(payload);
+        byte[] file = concat(ftyp(), mdat.array(), box("moov", mvhd0(1000, 8000)));
+        assertSeconds(8.0, file);
+    }
+
+    @Test
+    void keepsTrackDurationWhenMoovRunsToEndOfFile() {
+        byte[] trak = box("trak", box("mdia", mdhd0(1000, 20_000)));
+        ByteBuffer moov = ByteBuffer.allocate(8 + trak.length);
+        moov.putInt(0).put(ascii("moov")).put(trak);
+        assertSeconds(20.0, concat(ftyp(), moov.array()));
+    }
+
+    @Test
+    void truncatedMp4IsUnknown() {
+        byte[] file = concat(ftyp(), box("moov", mvhd0(1000, 45_500)));
+        assertUnknown(Arrays.copyOf(file, file.length - 90));
+        assertUnknown(Arrays.copyOf(file, 6));
+    }
+
+    @Test
+    void readsWebmDuration() {
+        byte[] info = concat(element(0x2AD7B1, new byte[] { 0x0F, 0x42, 0x40 }), element(0x4489, float32(12_500f)));
+        byte[] segment = concat(element(0x114D9B74, new byte[12]), element(0x1549A966, info),
+                element(0x1F43B675, new byte[64]));
+        byte[] file = concat(element(0x1A45DFA3, new byte[8]), element(0x18538067, segment));
+        assertSeconds(12.5, file);
+    }
+
+    @Test
+    void readsWebmDurationInUnknownSizeSegment() {
+        byte[] info = element(0x4489, float64(45_000.0));
+        byte[] file = concat(element(0x1A45DFA3, new byte[8]), unknownSize(0x18538067),
+                element(0x1549A966, info), unknownSize(0x1F43B675), new byte[64]);
+        assertSeconds(45.0, file);
+    }
+
+    @Test
+    void unknownSizeElementBeforeInfoIsUnknown() {
+        byte[] info = element(0x4489, float32(1000f));
+        byte[] file = concat(element(0x1A45DFA3, new byte[8]), unknownSize(0x18538067),
+                unknownSize(0x114D9B74), element(0x1549A966, info));
+        assertUnknown(file);
+    }
+
+    @Test
+    void webmWithoutDurationIsUnknown() {
+        byte[] info = element(0x2AD7B1, new byte[] { 0x0F, 0x42, 0x40 });
+        byte[] file = concat(element(0x1A45DFA3, new byte[8]), unknownSize(0x18538067),
+                element(0x1549A966, info), unknownSize(0x1F43B675));
+        assertUnknown(file);
+    }
+
+    @Test
+    void unrecognisedInputIsUnknown() {
+        assertUnknown("not a video at all".getBytes(StandardCharsets.US_ASCII));
+        assertUnknown(new byte[0]);
+    }
+
+    private static void assertSeconds(double expected, byte[] file) {
+        OptionalDouble seconds = VideoDurationProbe.probeSeconds(new ByteArrayInputStream(file));
+        assertTrue(seconds.isPresent(), "duration not found");
+        assertEquals(expected, seconds.getAsDouble(), DELTA);
+    }
+
+    private static void assertUnknown(byte[] file) {
+        assertTrue(VideoDurationProbe.probeSeconds(new ByteArrayInputStream(file)).isEmpty());
+    }
+
+    private static byte[] ftyp() {
+        return box("ftyp", concat(ascii("isom"), new byte[4], ascii("isomiso2mp41")));
+    }
+
+    // version 0: version/flags, creation, modification, timescale, 32-bit duration, then the rest
+    private static byte[] mvhd0(long timescale, long duration) {
+        ByteBuffer body = ByteBuffer.allocate(100);
+        body.putInt(0).putInt(0).putInt(0).putInt((int) timescale).putInt((int) duration);
+        return box("mvhd", body.array());
+    }
+
+    // version 1: 64-bit creation and modification times and duration
+    private static byte[] mvhd1(long timescale, long duration) {
+        ByteBuffer body = ByteBuffer.allocate(112);
+        body.putInt(1 << 24).putLong(0).putLong(0).putInt((int) timescale).putLong(duration);
+        return box("mvhd", body.array());
+    }
+
+    private static byte[] mdhd0(long timescale, long duration) {
+        ByteBuffer body = ByteBuffer.allocate(24);
+        body.putInt(0).putInt(0).putInt(0).putInt((int) timescale).putInt((int) duration);
+        return box("mdhd", body.array());
+    }
+
+    private static byte[] box(String type, byte[]... children) {
+        byte[] payload = concat(children);
+        ByteBuffer box = ByteBuffer.allocate(8 + payload.length);
+        box.putInt(8 + payload.length).put(ascii(type)).put(payload);
+        return box.array();
+    }
+
+    // EBML element with an 8-byte size, which is valid for any element
+    private static byte[] element(long id, byte[] payload) {
+        ByteBuffer element = ByteBuffer.allocate(idLength(id) + 8 + payload.length);
+        putId(element, id);
+        element.putLong(0x0100000000000000L | payload.length).put(payload);
+        return element.array();
+    }
+
+    // Element header with the reserved all-ones size that means "unknown"
+    private static byte[] unknownSize(long id) {
+        ByteBuffer element = ByteBuffer.allocate(idLength(id) + 1);
+        putId(element, id);
+        element.put((byte) 0xFF);
+        return element.array();
+    }
+
+    private static int idLength(long id) {
+        return id > 0xFFFFFF ? 4 : id > 0xFFFF ? 3 : id > 0xFF ? 2 : 1;
+    }
+
+    private static void putId(ByteBuffer buffer, long id) {
+        for (int shift = (idLength(id) - 1) * 8; shift >= 0; shift -= 8) {
+            buffer.put((byte) (id >>> shift));
+        }
+    }
+
+    private static byte[] float32(float value) {
+        return ByteBuffer.allocate(4).putFloat(value).array();
+    }
+
+    private static byte[] float64(double value) {
+        return ByteBuffer.allocate(8).putDouble(value).array();
+    }
+
+    private static byte[] ascii(String value) {
+        return value.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private static byte[] concat(byte[]... parts) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (byte[] part : parts) {
+            out.writeBytes(part);
+        }
+        return out.toByteArray();
+    }
+}